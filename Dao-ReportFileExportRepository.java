@@ -0,0 +1,132 @@
+package com.scb.rwtoolbackend.dao;
+
+import com.scb.rwtoolbackend.model.ReportFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ * Forward-only reads of report_files and report_files_history for exports.
+ *
+ * Rows come through a JDBC cursor, fetch-size rows per round trip, and are handed to the caller one at a time as
+ * detached ReportFile objects; nothing is loaded into a persistence context or collected. The read-only
+ * transaction is what lets PostgreSQL keep the cursor open (with autocommit it would fetch the whole result).
+ */
+@Repository
+public class ReportFileExportRepository {
+
+    private static final String ACTIVE_SELECT = "select file_id, file_name, remote_path, local_path, destination_group,"
+        + " transfer_status, current_location, storage_format, date_created, date_transferred, file_size, stored_size,"
+        + " checksum, content_hash, attempt_count, last_error from report_files where true";
+
+    // Archived rows are TRANSFERRED by construction, LOCAL until their copy is evicted, and keep no retry bookkeeping
+    private static final String HISTORY_SELECT = "select file_id, file_name, remote_path, local_path,"
+        + " destination_group, 'TRANSFERRED' as transfer_status,"
+        + " case when local_path is null then 'REMOTE' else 'LOCAL' end as current_location, storage_format,"
+        + " date_created, date_transferred, file_size, stored_size, checksum, content_hash,"
+        + " cast(null as integer) as attempt_count, cast(null as varchar) as last_error"
+        + " from report_files_history where true";
+
+    private static final RowMapper<ReportFile> ROW_MAPPER = (rs, i) -> {
+        ReportFile file = new ReportFile(rs.getString("file_id"), rs.getString("file_name"),
+            rs.getString("remote_path"), rs.getString("local_path"), rs.getString("destination_group"),
+            ReportFile.TransferStatus.valueOf(rs.getString("transfer_status")),
+            ReportFile.StorageLocation.valueOf(rs.getString("current_location")),
+            toLocal(rs.getTimestamp("date_created")));
+        String format = rs.getString("storage_format");
+        file.setStorageFormat(format == null ? null : ReportFile.StorageFormat.valueOf(format));
+        file.setDateTransferred(toLocal(rs.getTimestamp("date_transferred")));
+        file.setFileSize(rs.getObject("file_size", Long.class));
+        file.setStoredSize(rs.getObject("stored_size", Long.class));
+        file.setChecksum(rs.getString("checksum"));
+        file.setContentHash(rs.getString("content_hash"));
+        file.setAttemptCount(rs.getObject("attempt_count", Integer.class));
+        file.setLastError(rs.getString("last_error"));
+        return file;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private ReportFileHistoryRepository historyRepository;
+
+    @Value("${ops.export.fetch-size:1000}")
+    private int fetchSize;
+
+    // Every matching row, in (dateCreated, fileId) order: active rows first, then archived ones. Null filters match
+    // everything; from/to is a [from, to) window on dateCreated. Returns the number of rows passed to 'sink'.
+    // REPEATABLE READ runs both queries on one snapshot; otherwise a row archived while the first cursor is open
+    // is exported from both tables.
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public long stream(String destinationGroup, Collection<ReportFile.TransferStatus> statuses,
+                       LocalDateTime from, LocalDateTime to, Consumer<ReportFile> sink) {
+        long rows = query(ACTIVE_SELECT, destinationGroup, statuses, from, to, sink);
+        if (historyRepository.isAvailable()
+                && (statuses == null || statuses.contains(ReportFile.TransferStatus.TRANSFERRED))) {
+            rows += query(HISTORY_SELECT, destinationGroup, null, from, to, sink);
+        }
+        return rows;
+    }
+
+    private long query(String select, String destinationGroup, Collection<ReportFile.TransferStatus> statuses,
+                       LocalDateTime from, LocalDateTime to, Consumer<ReportFile> sink) {
+        StringBuilder sql = new StringBuilder(select);
+        List<Object> args = new ArrayList<>();
+        if (destinationGroup != null) {
+            sql.append(" and destination_group = ?");
+            args.add(destinationGroup);
+        }
+        if (statuses != null) {
+            if (statuses.isEmpty()) {
+                return 0;
+            }
+            sql.append(" and transfer_status in (")
+                .append(String.join(",", Collections.nCopies(statuses.size(), "?"))).append(")");
+            statuses.forEach(status -> args.add(status.name()));
+        }
+        if (from != null) {
+            sql.append(" and date_created >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" and date_created < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(" order by date_created, file_id");
+
+        long[] rows = new long[1];
+        jdbc.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                statement.setObject(i + 1, args.get(i));
+            }
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            sink.accept(ROW_MAPPER.mapRow(rs, 0));
+            rows[0]++;
+        });
+        return rows[0];
+    }
+
+    private static LocalDateTime toLocal(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,248 @@
+package com.scb.rwtoolbackend.dao;
+
+import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.model.ReportFileHistory;
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/*
+ * report_files_history: TRANSFERRED rows moved out of report_files by TransferArchiver.
+ *
+ * The table is range-partitioned by month of dateTransferred (PostgreSQL declarative partitioning), so queries with
+ * a time window only touch the matching partitions and old months can be detached or dropped as a whole. Hibernate
+ * cannot create partitioned tables, so this repository owns the DDL and creates monthly partitions on demand
+ * before rows for that month are moved. When the database does not support it (e.g. the H2 benchmark context)
+ * the history is reported as unavailable and archival stays off.
+ */
+@Repository
+public class ReportFileHistoryRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportFileHistoryRepository.class);
+
+    private static final String TABLE = "report_files_history";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+
+    private static final String COLUMNS = "file_id, file_name, remote_path, local_path, destination_group, "
+        + "storage_format, date_created, date_transferred, archived_at, file_size, stored_size, checksum, content_hash";
+
+    // 1. Moves one batch in a single statement: the DELETE ... RETURNING feeds the INSERT, so a row is never in
+    //    both tables or in neither. SKIP LOCKED leaves rows that a live request holds to a later batch.
+    //    Rows transferred before dateTransferred existed fall back to dateCreated. Rows whose local copy was
+    //    evicted (REMOTE) are archived too; listing both locations keeps the archive index usable.
+    private static final String ARCHIVE_BATCH = "with moved as ("
+        + " delete from report_files r using ("
+        + "   select file_id from report_files"
+        + "   where transfer_status = 'TRANSFERRED' and current_location in ('LOCAL', 'REMOTE')"
+        + "   and (date_transferred < ? or (date_transferred is null and date_created < ?))"
+        + "   limit ? for update skip locked) c"
+        + " where r.file_id = c.file_id"
+        + " returning r.file_id, r.file_name, r.remote_path, r.local_path, r.destination_group, r.storage_format,"
+        + " r.date_created, coalesce(r.date_transferred, r.date_created) as date_transferred, r.file_size,"
+        + " r.stored_size, r.checksum, r.content_hash)"
+        + " insert into " + TABLE + " (" + COLUMNS + ")"
+        + " select file_id, file_name, remote_path, local_path, destination_group, storage_format, date_created,"
+        + " date_transferred, now(), file_size, stored_size, checksum, content_hash from moved"
+        + " returning file_id, file_name, destination_group, date_created, file_size";
+
+    // 2. Oldest archivable row, so partitions exist for every month the next batches can touch
+    private static final String OLDEST_ARCHIVABLE = "select min(coalesce(date_transferred, date_created))"
+        + " from report_files where transfer_status = 'TRANSFERRED' and current_location in ('LOCAL', 'REMOTE')"
+        + " and (date_transferred < ? or (date_transferred is null and date_created < ?))";
+
+    // 5. Archived rows that still have a local copy, oldest transfer first, for the local storage tier
+    private static final String LOCAL_COPIES = "select " + COLUMNS + " from " + TABLE
+        + " where local_path is not null order by date_transferred, file_id";
+
+    private static final RowMapper<ReportFileHistory> ROW_MAPPER = (rs, i) -> new ReportFileHistory(
+        rs.getString("file_id"),
+        rs.getString("file_name"),
+        rs.getString("remote_path"),
+        rs.getString("local_path"),
+        rs.getString("destination_group"),
+        toFormat(rs.getString("storage_format")),
+        toLocal(rs.getTimestamp("date_created")),
+        toLocal(rs.getTimestamp("date_transferred")),
+        toLocal(rs.getTimestamp("archived_at")),
+        rs.getObject("file_size", Long.class),
+        rs.getObject("stored_size", Long.class),
+        rs.getString("checksum"),
+        rs.getString("content_hash"));
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Value("${ops.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private final Set<YearMonth> partitions = ConcurrentHashMap.newKeySet();
+    private volatile boolean available;
+
+    @PostConstruct
+    void createSchema() {
+        try {
+            jdbc.execute("create table if not exists " + TABLE + " ("
+                + " file_id varchar(255) not null,"
+                + " file_name varchar(255),"
+                + " remote_path varchar(255),"
+                + " local_path varchar(255),"
+                + " destination_group varchar(255),"
+                + " storage_format varchar(8),"
+                + " date_created timestamp,"
+                + " date_transferred timestamp not null,"
+                + " archived_at timestamp not null,"
+                + " file_size bigint,"
+                + " stored_size bigint,"
+                + " checksum varchar(255),"
+                + " content_hash varchar(255),"
+                + " primary key (date_transferred, file_id)"
+                + ") partition by range (date_transferred)");
+            // Partitioned indexes: created once on the parent, inherited by every monthly partition
+            jdbc.execute("create index if not exists idx_report_files_history_group on " + TABLE
+                + " (destination_group, date_transferred, file_id)");
+            jdbc.execute("create index if not exists idx_report_files_history_remote_path on " + TABLE
+                + " (remote_path)");
+            jdbc.execute("create index if not exists idx_report_files_history_file_id on " + TABLE + " (file_id)");
+            available = true;
+        } catch (DataAccessException e) {
+            log.warn("Partitioned history table is not supported by this database; archival is disabled", e);
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    // Creates the monthly partitions covering [from, to]; months already created by this instance are skipped
+    public void ensurePartitions(LocalDateTime from, LocalDateTime to) {
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)); month = month.plusMonths(1)) {
+            if (partitions.contains(month)) {
+                continue;
+            }
+            jdbc.execute("create table if not exists " + TABLE + "_" + month.format(PARTITION_SUFFIX)
+                + " partition of " + TABLE + " for values from ('" + month.atDay(1).atStartOfDay() + "')"
+                + " to ('" + month.plusMonths(1).atDay(1).atStartOfDay() + "')");
+            partitions.add(month);
+        }
+    }
+
+    public LocalDateTime findOldestArchivable(LocalDateTime cutoff) {
+        Timestamp before = Timestamp.valueOf(cutoff);
+        return toLocal(jdbc.queryForObject(OLDEST_ARCHIVABLE, Timestamp.class, before, before));
+    }
+
+    // Returns the rows moved (all TRANSFERRED); fewer than batchSize means nothing older than cutoff is left
+    public List<ReportFileSummary> archiveBatch(LocalDateTime cutoff, int batchSize) {
+        Timestamp before = Timestamp.valueOf(cutoff);
+        return jdbc.query(ARCHIVE_BATCH, (rs, i) -> new ReportFileSummary(rs.getString("file_id"),
+            rs.getString("file_name"), rs.getString("destination_group"), ReportFile.TransferStatus.TRANSFERRED,
+            toLocal(rs.getTimestamp("date_created")), rs.getObject("file_size", Long.class)),
+            before, before, batchSize);
+    }
+
+    // 3. Discovery: archived paths must not be registered again
+    public List<String> findArchivedRemotePaths(Collection<String> paths) {
+        if (!available || paths.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String placeholders = String.join(",", Collections.nCopies(paths.size(), "?"));
+        return jdbc.queryForList("select remote_path from " + TABLE + " where remote_path in (" + placeholders + ")",
+            String.class, paths.toArray());
+    }
+
+    // 4. Keyset page, newest first, ordered by (dateTransferred, fileId) descending. A from/to window prunes
+    //    partitions; without one the ordered scan reads the newest partitions first and stops at the limit.
+    public List<ReportFileHistory> findPage(String destinationGroup, LocalDateTime from, LocalDateTime to,
+                                            LocalDateTime beforeDate, String beforeId, int limit) {
+        if (!available) {
+            return Collections.emptyList();
+        }
+        StringBuilder sql = new StringBuilder("select " + COLUMNS + " from " + TABLE + " where true");
+        List<Object> args = new ArrayList<>();
+        if (destinationGroup != null) {
+            sql.append(" and destination_group = ?");
+            args.add(destinationGroup);
+        }
+        if (from != null) {
+            sql.append(" and date_transferred >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" and date_transferred < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        if (beforeDate != null) {
+            sql.append(" and (date_transferred, file_id) < (?, ?)");
+            args.add(Timestamp.valueOf(beforeDate));
+            args.add(beforeId);
+        }
+        sql.append(" order by date_transferred desc, file_id desc limit ?");
+        args.add(limit);
+        return jdbc.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    // Streams through a cursor (see ReportFileExportRepository), so the archive is never held in memory
+    @Transactional(readOnly = true)
+    public void forEachLocalCopy(Consumer<ReportFileHistory> sink) {
+        if (!available) {
+            return;
+        }
+        jdbc.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCAL_COPIES,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (RowCallbackHandler) rs -> sink.accept(ROW_MAPPER.mapRow(rs, 0)));
+    }
+
+    // 7. Download of an archived file; idx_report_files_history_file_id finds it without the partition key
+    public Optional<ReportFileHistory> findByFileId(String fileId) {
+        if (!available) {
+            return Optional.empty();
+        }
+        return jdbc.query("select " + COLUMNS + " from " + TABLE + " where file_id = ?", ROW_MAPPER, fileId)
+            .stream().findFirst();
+    }
+
+    // 6. Eviction: archived rows of an evicted copy no longer point at it
+    public int clearLocalPaths(Collection<String> fileIds) {
+        if (!available || fileIds.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(",", Collections.nCopies(fileIds.size(), "?"));
+        return jdbc.update("update " + TABLE + " set local_path = null, stored_size = null"
+            + " where file_id in (" + placeholders + ") and local_path is not null", fileIds.toArray());
+    }
+
+    private static ReportFile.StorageFormat toFormat(String format) {
+        return format == null ? null : ReportFile.StorageFormat.valueOf(format);
+    }
+
+    private static LocalDateTime toLocal(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -1,7 +1,16 @@
 package com.scb.rwtoolbackend.dao;
 
 import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.model.ReportFileCount;
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ReportFileRepository extends JpaRepository<ReportFile, String> {
@@ -13,4 +22,231 @@ public interface ReportFileRepository extends JpaRepository<ReportFile, String>
     // 2. Used for the OPS TRANSFER QUEUE (Status: READY_TO_TRANSFER or PROCESSING, Location: REMOTE)
     List<ReportFile> findByCurrentLocationAndTransferStatusIn(
         ReportFile.StorageLocation location, List<ReportFile.TransferStatus> statuses);
+
+    // 3. Used by the copy engine to persist the last durable offset without rewriting the whole row
+    @Modifying
+    @Transactional
+    @Query("update ReportFile f set f.bytesTransferred = :offset where f.fileId = :fileId")
+    int updateBytesTransferred(@Param("fileId") String fileId, @Param("offset") long offset);
+
+    // 4. Used by range-split copies to record which ranges are durable
+    @Modifying
+    @Transactional
+    @Query("update ReportFile f set f.completedRanges = :completedRanges, f.bytesTransferred = :bytes "
+         + "where f.fileId = :fileId")
+    int updateRangeProgress(@Param("fileId") String fileId, @Param("completedRanges") String completedRanges,
+                            @Param("bytes") long bytes);
+
+    // 5. Used by discovery to skip files that are already registered (one IN query per batch)
+    @Query("select f.remotePath from ReportFile f where f.remotePath in :paths")
+    List<String> findExistingRemotePaths(@Param("paths") Collection<String> paths);
+
+    // 6. Keyset pages for the notification sidebar and transfer queue, ordered by (dateCreated, fileId).
+    //    Served by idx_report_files_queue as an index range scan; the first page simply omits the cursor.
+    @Query("select new com.scb.rwtoolbackend.model.ReportFileSummary("
+         + "f.fileId, f.fileName, f.destinationGroup, f.transferStatus, f.dateCreated, f.fileSize) "
+         + "from ReportFile f where f.currentLocation = :location and f.transferStatus in :statuses "
+         + "order by f.dateCreated, f.fileId")
+    List<ReportFileSummary> findFirstPage(@Param("location") ReportFile.StorageLocation location,
+                                          @Param("statuses") Collection<ReportFile.TransferStatus> statuses,
+                                          Pageable page);
+
+    @Query("select new com.scb.rwtoolbackend.model.ReportFileSummary("
+         + "f.fileId, f.fileName, f.destinationGroup, f.transferStatus, f.dateCreated, f.fileSize) "
+         + "from ReportFile f where f.currentLocation = :location and f.transferStatus in :statuses "
+         + "and (f.dateCreated > :afterDate or (f.dateCreated = :afterDate and f.fileId > :afterId)) "
+         + "order by f.dateCreated, f.fileId")
+    List<ReportFileSummary> findPageAfter(@Param("location") ReportFile.StorageLocation location,
+                                          @Param("statuses") Collection<ReportFile.TransferStatus> statuses,
+                                          @Param("afterDate") LocalDateTime afterDate,
+                                          @Param("afterId") String afterId,
+                                          Pageable page);
+
+    // 7. Bulk operations: resolve a destinationGroup filter to ids, lock the rows still in the expected status,
+    //    move them in one set-based UPDATE and read back their summaries
+    @Query("select f.fileId from ReportFile f where f.destinationGroup = :group and f.transferStatus = :status "
+         + "order by f.dateCreated, f.fileId")
+    List<String> findIdsByGroupAndStatus(@Param("group") String group,
+                                         @Param("status") ReportFile.TransferStatus status,
+                                         Pageable page);
+
+    @Query(value = "select file_id from report_files where file_id in (:ids) and transfer_status = :status "
+                 + "for update", nativeQuery = true)
+    List<String> lockIdsInStatus(@Param("ids") Collection<String> ids, @Param("status") String status);
+
+    @Modifying
+    @Query("update ReportFile f set f.transferStatus = :to, f.version = f.version + 1, "
+         + "f.leaseOwner = :owner, f.heartbeatAt = :now "
+         + "where f.fileId in :ids and f.transferStatus = :from")
+    int transitionAll(@Param("ids") Collection<String> ids,
+                      @Param("from") ReportFile.TransferStatus from,
+                      @Param("to") ReportFile.TransferStatus to,
+                      @Param("owner") String leaseOwner,
+                      @Param("now") LocalDateTime now);
+
+    @Query("select new com.scb.rwtoolbackend.model.ReportFileSummary("
+         + "f.fileId, f.fileName, f.destinationGroup, f.transferStatus, f.dateCreated, f.fileSize) "
+         + "from ReportFile f where f.fileId in :ids")
+    List<ReportFileSummary> findSummariesByIds(@Param("ids") Collection<String> ids);
+
+    // 8. Compare-and-set status transition: checks and changes the status in one statement.
+    //    Returns 1 for the caller that won, 0 if the row was missing or no longer in 'from'. Like every heartbeat
+    //    write, 'now' comes from the JVM clock the stale cutoffs are computed on, not the database's.
+    @Modifying
+    @Transactional
+    @Query("update ReportFile f set f.transferStatus = :to, f.version = f.version + 1, "
+         + "f.leaseOwner = :owner, f.heartbeatAt = :now "
+         + "where f.fileId = :fileId and f.transferStatus = :from")
+    int compareAndSetStatus(@Param("fileId") String fileId,
+                            @Param("from") ReportFile.TransferStatus from,
+                            @Param("to") ReportFile.TransferStatus to,
+                            @Param("owner") String leaseOwner,
+                            @Param("now") LocalDateTime now);
+
+    // 9. Content-addressed dedup: cheap same-size probe first, then the LOCAL blobs holding a given hash
+    boolean existsByFileSizeAndCurrentLocation(Long fileSize, ReportFile.StorageLocation location);
+
+    //    Only blobs stored in the requested format qualify, so a linked copy never changes encoding.
+    List<ReportFile> findByContentHashAndCurrentLocationAndStorageFormat(
+        String contentHash, ReportFile.StorageLocation location, ReportFile.StorageFormat format);
+
+    //    Local targets: another row already storing its copy at (or referencing) a path
+    boolean existsByLocalPathAndFileIdNot(String localPath, String fileId);
+
+    boolean existsByLocalPathAndCurrentLocation(String localPath, ReportFile.StorageLocation location);
+
+    // 10. Transfer leases: leaseOwner is the node running a PROCESSING row and refreshes its heartbeat; a row whose
+    //     heartbeat went stale (crashed node, lost worker) is taken over with a conditional UPDATE so only one
+    //     claimer wins. Status transitions (7, 8) set the owner and stamp heartbeatAt in the same statement, so a row
+    //     is never stale between PROCESSING and enqueue. Claims bump version, so a worker whose lease was taken
+    //     over can no longer save the row.
+    @Modifying
+    @Transactional
+    @Query("update ReportFile f set f.heartbeatAt = :now "
+         + "where f.fileId in :ids and f.transferStatus = :status and f.leaseOwner = :owner")
+    int heartbeat(@Param("ids") Collection<String> ids,
+                  @Param("status") ReportFile.TransferStatus status,
+                  @Param("owner") String leaseOwner,
+                  @Param("now") LocalDateTime now);
+
+    @Query("select f.fileId from ReportFile f where f.transferStatus = :status "
+         + "and (f.heartbeatAt is null or f.heartbeatAt < :cutoff) and f.fileId > :afterId order by f.fileId")
+    List<String> findStaleIds(@Param("status") ReportFile.TransferStatus status,
+                              @Param("cutoff") LocalDateTime cutoff,
+                              @Param("afterId") String afterId,
+                              Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("update ReportFile f set f.leaseOwner = :owner, f.heartbeatAt = :now, f.version = f.version + 1 "
+         + "where f.fileId = :fileId and f.transferStatus = :status "
+         + "and (f.heartbeatAt is null or f.heartbeatAt < :cutoff)")
+    int claimStale(@Param("fileId") String fileId,
+                   @Param("status") ReportFile.TransferStatus status,
+                   @Param("cutoff") LocalDateTime cutoff,
+                   @Param("owner") String leaseOwner,
+                   @Param("now") LocalDateTime now);
+
+    // Hands a row this node cannot run back to the pool of unclaimed work
+    @Modifying
+    @Transactional
+    @Query("update ReportFile f set f.leaseOwner = null, f.heartbeatAt = :now, f.version = f.version + 1 "
+         + "where f.fileId = :fileId and f.transferStatus = :status and f.leaseOwner = :owner")
+    int releaseLease(@Param("fileId") String fileId,
+                     @Param("status") ReportFile.TransferStatus status,
+                     @Param("owner") String leaseOwner,
+                     @Param("now") LocalDateTime now);
+
+    // 11. Search index warm-up: every row as a summary, keyset-paged in primary-key order
+    @Query("select new com.scb.rwtoolbackend.model.ReportFileSummary("
+         + "f.fileId, f.fileName, f.destinationGroup, f.transferStatus, f.dateCreated, f.fileSize) "
+         + "from ReportFile f where f.fileId > :afterId order by f.fileId")
+    List<ReportFileSummary> findSummariesAfter(@Param("afterId") String afterId, Pageable page);
+
+    // 12. Shared claiming (transfer.cluster.claim-mode=SHARED): PROCESSING rows without an owner are the durable job
+    //     queue. A worker picks candidates oldest first, claims them in one conditional UPDATE (rows another worker
+    //     took in the meantime simply do not match) and reads back exactly the rows stamped with its claim time.
+    @Query("select f.fileId from ReportFile f where f.transferStatus = :status and f.leaseOwner is null "
+         + "order by f.dateCreated, f.fileId")
+    List<String> findUnclaimedIds(@Param("status") ReportFile.TransferStatus status, Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("update ReportFile f set f.leaseOwner = :owner, f.heartbeatAt = :claimedAt, f.version = f.version + 1 "
+         + "where f.fileId in :ids and f.transferStatus = :status and f.leaseOwner is null")
+    int claimUnclaimed(@Param("ids") Collection<String> ids,
+                       @Param("status") ReportFile.TransferStatus status,
+                       @Param("owner") String leaseOwner,
+                       @Param("claimedAt") LocalDateTime claimedAt);
+
+    @Query("select f.fileId from ReportFile f where f.fileId in :ids and f.transferStatus = :status "
+         + "and f.leaseOwner = :owner and f.heartbeatAt = :claimedAt")
+    List<String> findClaimedIds(@Param("ids") Collection<String> ids,
+                                @Param("status") ReportFile.TransferStatus status,
+                                @Param("owner") String leaseOwner,
+                                @Param("claimedAt") LocalDateTime claimedAt);
+
+    // 13. Retries: FAILED rows due before 'before', keyset-paged by (nextRetryAt, fileId) for the timing wheel, and
+    //     the manual re-queue of FAILED / DEAD_LETTER rows, which also clears the retry bookkeeping
+    @Query("select f from ReportFile f where f.transferStatus = :status and f.nextRetryAt < :before "
+         + "and (f.nextRetryAt > :afterDate or (f.nextRetryAt = :afterDate and f.fileId > :afterId)) "
+         + "order by f.nextRetryAt, f.fileId")
+    List<ReportFile> findRetriesDue(@Param("status") ReportFile.TransferStatus status,
+                                    @Param("before") LocalDateTime before,
+                                    @Param("afterDate") LocalDateTime afterDate,
+                                    @Param("afterId") String afterId,
+                                    Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("update ReportFile f set f.transferStatus = :to, f.attemptCount = 0, f.nextRetryAt = null, "
+         + "f.version = f.version + 1, f.leaseOwner = null, f.heartbeatAt = :now "
+         + "where f.fileId = :fileId and f.transferStatus = :from")
+    int requeue(@Param("fileId") String fileId,
+                @Param("from") ReportFile.TransferStatus from,
+                @Param("to") ReportFile.TransferStatus to,
+                @Param("now") LocalDateTime now);
+
+    //     A failed attempt, recorded by the node holding the lease. Not a versioned save: the attempt may have failed
+    //     on a version conflict itself, and a row whose lease was taken over no longer matches.
+    @Modifying
+    @Transactional
+    @Query("update ReportFile f set f.transferStatus = :to, f.attemptCount = :attempts, f.lastError = :error, "
+         + "f.nextRetryAt = :retryAt, f.bytesTransferred = :bytes, f.rangeSize = :rangeSize, "
+         + "f.completedRanges = :completedRanges, f.version = f.version + 1 "
+         + "where f.fileId = :fileId and f.transferStatus = :from and f.leaseOwner = :owner")
+    int recordFailure(@Param("fileId") String fileId,
+                      @Param("owner") String leaseOwner,
+                      @Param("from") ReportFile.TransferStatus from,
+                      @Param("to") ReportFile.TransferStatus to,
+                      @Param("attempts") int attempts,
+                      @Param("error") String error,
+                      @Param("retryAt") LocalDateTime retryAt,
+                      @Param("bytes") Long bytesTransferred,
+                      @Param("rangeSize") Long rangeSize,
+                      @Param("completedRanges") String completedRanges);
+
+    // 14. Dashboard counters: rows and bytes per status and destinationGroup, to reconcile the in-memory counts
+    @Query("select new com.scb.rwtoolbackend.model.ReportFileCount("
+         + "f.transferStatus, f.destinationGroup, count(f), sum(f.fileSize)) "
+         + "from ReportFile f group by f.transferStatus, f.destinationGroup")
+    List<ReportFileCount> countByStatusAndGroup();
+
+    // 15. Local storage tier: rows with a copy under the local root, keyset-paged in primary-key order for the load
+    //     at startup, and eviction of copies back to REMOTE-only. The UPDATE leaves rows that are no longer LOCAL.
+    @Query("select f from ReportFile f where f.currentLocation = :location and f.localPath is not null "
+         + "and f.fileId > :afterId order by f.fileId")
+    List<ReportFile> findStoredAfter(@Param("location") ReportFile.StorageLocation location,
+                                     @Param("afterId") String afterId,
+                                     Pageable page);
+
+    @Modifying
+    @Transactional
+    @Query("update ReportFile f set f.currentLocation = :to, f.localPath = null, f.storedSize = null, "
+         + "f.version = f.version + 1 "
+         + "where f.fileId in :ids and f.transferStatus = :status and f.currentLocation = :from")
+    int evictLocalCopies(@Param("ids") Collection<String> ids,
+                         @Param("status") ReportFile.TransferStatus status,
+                         @Param("from") ReportFile.StorageLocation from,
+                         @Param("to") ReportFile.StorageLocation to);
 }
@@ -0,0 +1,17 @@
+package com.scb.rwtoolbackend.model;
+
+import java.util.List;
+
+// Body of the bulk acknowledge/transfer endpoints: explicit fileIds, or every eligible file of a destinationGroup
+public class BulkRequest {
+
+    private List<String> fileIds;
+    private String destinationGroup;
+
+    public BulkRequest() {}
+
+    public List<String> getFileIds() { return fileIds; }
+    public void setFileIds(List<String> fileIds) { this.fileIds = fileIds; }
+    public String getDestinationGroup() { return destinationGroup; }
+    public void setDestinationGroup(String destinationGroup) { this.destinationGroup = destinationGroup; }
+}
@@ -0,0 +1,40 @@
+package com.scb.rwtoolbackend.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Per-file outcome of a bulk acknowledge/transfer request
+public class BulkResult {
+
+    public enum Outcome {
+        ACKNOWLEDGED,   // NEW -> READY_TO_TRANSFER by this request
+        QUEUED,         // READY_TO_TRANSFER -> PROCESSING by this request, copy enqueued
+        SKIPPED,        // Exists but was not in the required status (see status)
+        REJECTED,       // Transfer executor was full; file left READY_TO_TRANSFER
+        NOT_FOUND
+    }
+
+    public static class Item {
+        private final String fileId;
+        private final Outcome outcome;
+        private final ReportFile.TransferStatus status;
+
+        public Item(String fileId, Outcome outcome, ReportFile.TransferStatus status) {
+            this.fileId = fileId;
+            this.outcome = outcome;
+            this.status = status;
+        }
+
+        public String getFileId() { return fileId; }
+        public Outcome getOutcome() { return outcome; }
+        public ReportFile.TransferStatus getStatus() { return status; }
+    }
+
+    private final List<Item> items = new ArrayList<>();
+
+    public void add(String fileId, Outcome outcome, ReportFile.TransferStatus status) {
+        items.add(new Item(fileId, outcome, status));
+    }
+
+    public List<Item> getItems() { return items; }
+}
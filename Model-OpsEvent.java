@@ -0,0 +1,28 @@
+package com.scb.rwtoolbackend.model;
+
+import java.time.LocalDateTime;
+
+// A change pushed to /api/ops/events subscribers; id is monotonic and used for Last-Event-ID resume
+public class OpsEvent {
+
+    public enum Type {
+        DISCOVERED, ACKNOWLEDGED, TRANSFER_STATE
+    }
+
+    private final long id;
+    private final Type type;
+    private final ReportFileSummary file;
+    private final LocalDateTime timestamp;
+
+    public OpsEvent(long id, Type type, ReportFileSummary file, LocalDateTime timestamp) {
+        this.id = id;
+        this.type = type;
+        this.file = file;
+        this.timestamp = timestamp;
+    }
+
+    public long getId() { return id; }
+    public Type getType() { return type; }
+    public ReportFileSummary getFile() { return file; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+}
@@ -1,25 +1,76 @@
 package com.scb.rwtoolbackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
 import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "report_files")
-public class ReportFile {
+@Table(name = "report_files", indexes = {
+    // Unique: discovery and the inventory reconciler may race to register the same remote file
+    @Index(name = "idx_report_files_remote_path", columnList = "remote_path", unique = true),
+    // Keyset pagination of the queue/notifications: equality on location + status, range on (date, id)
+    @Index(name = "idx_report_files_queue",
+           columnList = "current_location, transfer_status, date_created, file_id"),
+    // Dedup: a same-size LOCAL file must exist before the source is hashed, then the hash finds the blob
+    @Index(name = "idx_report_files_size", columnList = "file_size, current_location"),
+    @Index(name = "idx_report_files_content_hash", columnList = "content_hash"),
+    // Local targets and eviction: rows storing or referencing a given local copy
+    @Index(name = "idx_report_files_local_path", columnList = "local_path"),
+    // Archival: completed rows older than the cutoff, oldest first (see TransferArchiver)
+    @Index(name = "idx_report_files_archive", columnList = "transfer_status, current_location, date_transferred"),
+    // Shared claiming: unowned PROCESSING rows, oldest first (see TransferLeaseManager)
+    @Index(name = "idx_report_files_lease", columnList = "transfer_status, lease_owner, date_created"),
+    // Automatic retries: FAILED rows by due time (see TransferRetryScheduler)
+    @Index(name = "idx_report_files_retry", columnList = "transfer_status, next_retry_at, file_id")
+})
+public class ReportFile implements Persistable<String> {
     
     // Statuses reflecting file lifecycle stages
     public enum TransferStatus {
-        NEW, READY_TO_TRANSFER, PROCESSING, TRANSFERRED, FAILED
+        NEW, READY_TO_TRANSFER, PROCESSING, TRANSFERRED, FAILED, DEAD_LETTER;
+
+        // NEW -> READY_TO_TRANSFER -> PROCESSING -> TRANSFERRED | FAILED | DEAD_LETTER.
+        // PROCESSING falls back to READY_TO_TRANSFER when the copy cannot be queued. FAILED is retried automatically
+        // (back to PROCESSING) until the attempts run out and the row is dead-lettered; Ops can re-queue both.
+        public boolean canTransitionTo(TransferStatus next) {
+            switch (this) {
+                case NEW:
+                    return next == READY_TO_TRANSFER;
+                case READY_TO_TRANSFER:
+                    return next == PROCESSING;
+                case PROCESSING:
+                    return next == TRANSFERRED || next == FAILED || next == DEAD_LETTER || next == READY_TO_TRANSFER;
+                case FAILED:
+                    return next == READY_TO_TRANSFER || next == PROCESSING;
+                case DEAD_LETTER:
+                    return next == READY_TO_TRANSFER;
+                default:
+                    return false;
+            }
+        }
     }
 
     public enum StorageLocation {
         REMOTE, LOCAL
     }
 
+    // On-disk encoding of the LOCAL copy; fileSize stays the original (decoded) size
+    public enum StorageFormat {
+        RAW, GZIP
+    }
+
     @Id
     private String fileId;
     private String fileName;
@@ -35,6 +86,51 @@ public class ReportFile {
     
     private LocalDateTime dateCreated;
 
+    // Set when the copy is verified; rows TRANSFERRED longer than transfer.archive.min-age-ms move to history
+    private LocalDateTime dateTransferred;
+
+    // Transfer progress: total source size, last durable offset and checksum of the verified copy
+    private Long fileSize;
+    private Long bytesTransferred;
+    private String checksum;
+
+    // How the LOCAL copy is stored and its size on disk
+    @Enumerated(EnumType.STRING)
+    @Column(columnDefinition = "varchar(8) default 'RAW'")
+    private StorageFormat storageFormat = StorageFormat.RAW;
+    private Long storedSize;
+
+    // SHA-256 of the content ("sha256:<hex>"); rows with the same hash share one LOCAL blob
+    private String contentHash;
+
+    // Range-split copies: range size in bytes and a Base64 BitSet of the ranges already on disk
+    private Long rangeSize;
+    private String completedRanges;
+
+    // Failed attempts so far, the cause of the last one and when the next automatic retry is due
+    // (see TransferRetryScheduler); reset when Ops re-queues the file
+    @Column(columnDefinition = "integer default 0 not null")
+    private Integer attemptCount = 0;
+    @Column(length = 1000)
+    private String lastError;
+    private LocalDateTime nextRetryAt;
+
+    // Transfer lease: the node running a PROCESSING row and its last heartbeat (see TransferLeaseManager). Written
+    // only by the transition and lease queries, never by entity saves, so a worker's save cannot roll a lease back.
+    @Column(insertable = false, updatable = false)
+    private String leaseOwner;
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime heartbeatAt;
+
+    // Optimistic lock for entity saves; conditional UPDATE queries bump it explicitly
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version = 0L;
+
+    // Assigned ids would make save() issue a SELECT before every INSERT; track newness so batches persist directly
+    @Transient
+    private boolean isNew = true;
+
     // --- Constructors ---
     public ReportFile() {}
 
@@ -51,6 +147,19 @@ public class ReportFile {
         this.dateCreated = dateCreated;
     }
 
+    // --- Persistable ---
+    @Override
+    @JsonIgnore
+    public String getId() { return fileId; }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() { return isNew; }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+
     // --- Getters and Setters (Required for JPA/Lombok equivalent) ---
     public String getFileId() { return fileId; }
     public void setFileId(String fileId) { this.fileId = fileId; }
@@ -68,4 +177,32 @@ public class ReportFile {
     public void setCurrentLocation(StorageLocation currentLocation) { this.currentLocation = currentLocation; }
     public LocalDateTime getDateCreated() { return dateCreated; }
     public void setDateCreated(LocalDateTime dateCreated) { this.dateCreated = dateCreated; }
+    public LocalDateTime getDateTransferred() { return dateTransferred; }
+    public void setDateTransferred(LocalDateTime dateTransferred) { this.dateTransferred = dateTransferred; }
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+    public Long getBytesTransferred() { return bytesTransferred; }
+    public void setBytesTransferred(Long bytesTransferred) { this.bytesTransferred = bytesTransferred; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+    public String getChecksum() { return checksum; }
+    public void setChecksum(String checksum) { this.checksum = checksum; }
+    public Integer getAttemptCount() { return attemptCount; }
+    public void setAttemptCount(Integer attemptCount) { this.attemptCount = attemptCount; }
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+    public LocalDateTime getNextRetryAt() { return nextRetryAt; }
+    public void setNextRetryAt(LocalDateTime nextRetryAt) { this.nextRetryAt = nextRetryAt; }
+    public String getLeaseOwner() { return leaseOwner; }
+    public LocalDateTime getHeartbeatAt() { return heartbeatAt; }
+    public StorageFormat getStorageFormat() { return storageFormat; }
+    public void setStorageFormat(StorageFormat storageFormat) { this.storageFormat = storageFormat; }
+    public Long getStoredSize() { return storedSize; }
+    public void setStoredSize(Long storedSize) { this.storedSize = storedSize; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public Long getRangeSize() { return rangeSize; }
+    public void setRangeSize(Long rangeSize) { this.rangeSize = rangeSize; }
+    public String getCompletedRanges() { return completedRanges; }
+    public void setCompletedRanges(String completedRanges) { this.completedRanges = completedRanges; }
 }
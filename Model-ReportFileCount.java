@@ -0,0 +1,22 @@
+package com.scb.rwtoolbackend.model;
+
+// Rows and total fileSize of report_files for one TransferStatus x destinationGroup, read with a constructor projection
+public class ReportFileCount {
+
+    private final ReportFile.TransferStatus transferStatus;
+    private final String destinationGroup;
+    private final long files;
+    private final long bytes;
+
+    public ReportFileCount(ReportFile.TransferStatus transferStatus, String destinationGroup, Long files, Long bytes) {
+        this.transferStatus = transferStatus;
+        this.destinationGroup = destinationGroup;
+        this.files = files == null ? 0L : files;
+        this.bytes = bytes == null ? 0L : bytes;
+    }
+
+    public ReportFile.TransferStatus getTransferStatus() { return transferStatus; }
+    public String getDestinationGroup() { return destinationGroup; }
+    public long getFiles() { return files; }
+    public long getBytes() { return bytes; }
+}
@@ -0,0 +1,54 @@
+package com.scb.rwtoolbackend.model;
+
+import java.time.LocalDateTime;
+
+// Archived copy of a TRANSFERRED row, read from the partitioned report_files_history table
+public class ReportFileHistory {
+
+    private final String fileId;
+    private final String fileName;
+    private final String remotePath;
+    private final String localPath;
+    private final String destinationGroup;
+    private final ReportFile.StorageFormat storageFormat;
+    private final LocalDateTime dateCreated;
+    private final LocalDateTime dateTransferred;
+    private final LocalDateTime archivedAt;
+    private final Long fileSize;
+    private final Long storedSize;
+    private final String checksum;
+    private final String contentHash;
+
+    public ReportFileHistory(String fileId, String fileName, String remotePath, String localPath,
+                             String destinationGroup, ReportFile.StorageFormat storageFormat,
+                             LocalDateTime dateCreated, LocalDateTime dateTransferred, LocalDateTime archivedAt,
+                             Long fileSize, Long storedSize, String checksum, String contentHash) {
+        this.fileId = fileId;
+        this.fileName = fileName;
+        this.remotePath = remotePath;
+        this.localPath = localPath;
+        this.destinationGroup = destinationGroup;
+        this.storageFormat = storageFormat;
+        this.dateCreated = dateCreated;
+        this.dateTransferred = dateTransferred;
+        this.archivedAt = archivedAt;
+        this.fileSize = fileSize;
+        this.storedSize = storedSize;
+        this.checksum = checksum;
+        this.contentHash = contentHash;
+    }
+
+    public String getFileId() { return fileId; }
+    public String getFileName() { return fileName; }
+    public String getRemotePath() { return remotePath; }
+    public String getLocalPath() { return localPath; }
+    public String getDestinationGroup() { return destinationGroup; }
+    public ReportFile.StorageFormat getStorageFormat() { return storageFormat; }
+    public LocalDateTime getDateCreated() { return dateCreated; }
+    public LocalDateTime getDateTransferred() { return dateTransferred; }
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public Long getFileSize() { return fileSize; }
+    public Long getStoredSize() { return storedSize; }
+    public String getChecksum() { return checksum; }
+    public String getContentHash() { return contentHash; }
+}
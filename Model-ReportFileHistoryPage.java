@@ -0,0 +1,18 @@
+package com.scb.rwtoolbackend.model;
+
+import java.util.List;
+
+// One keyset page of archived rows, newest dateTransferred first; nextCursor is null on the last page
+public class ReportFileHistoryPage {
+
+    private final List<ReportFileHistory> items;
+    private final String nextCursor;
+
+    public ReportFileHistoryPage(List<ReportFileHistory> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ReportFileHistory> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+}
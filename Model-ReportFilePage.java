@@ -0,0 +1,18 @@
+package com.scb.rwtoolbackend.model;
+
+import java.util.List;
+
+// One keyset page; nextCursor is null on the last page
+public class ReportFilePage {
+
+    private final List<ReportFileSummary> items;
+    private final String nextCursor;
+
+    public ReportFilePage(List<ReportFileSummary> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ReportFileSummary> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,36 @@
+package com.scb.rwtoolbackend.model;
+
+import java.time.LocalDateTime;
+
+// Lightweight row for the ops tables: only the columns the UI shows, read with a constructor projection
+public class ReportFileSummary {
+
+    private final String fileId;
+    private final String fileName;
+    private final String destinationGroup;
+    private final ReportFile.TransferStatus transferStatus;
+    private final LocalDateTime dateCreated;
+    private final Long fileSize;
+
+    public ReportFileSummary(String fileId, String fileName, String destinationGroup,
+                             ReportFile.TransferStatus transferStatus, LocalDateTime dateCreated, Long fileSize) {
+        this.fileId = fileId;
+        this.fileName = fileName;
+        this.destinationGroup = destinationGroup;
+        this.transferStatus = transferStatus;
+        this.dateCreated = dateCreated;
+        this.fileSize = fileSize;
+    }
+
+    public static ReportFileSummary of(ReportFile file) {
+        return new ReportFileSummary(file.getFileId(), file.getFileName(), file.getDestinationGroup(),
+            file.getTransferStatus(), file.getDateCreated(), file.getFileSize());
+    }
+
+    public String getFileId() { return fileId; }
+    public String getFileName() { return fileName; }
+    public String getDestinationGroup() { return destinationGroup; }
+    public ReportFile.TransferStatus getTransferStatus() { return transferStatus; }
+    public LocalDateTime getDateCreated() { return dateCreated; }
+    public Long getFileSize() { return fileSize; }
+}
@@ -64,4 +64,32 @@ const fetchAPI = async (endpoint, method = 'GET', data = null) => {
     return []; 
 };
 
+// Mock of the keyset pages served by /queue and /notifications: rows are shaped like the server's summaries
+// and the cursor is just the offset of the next page, absent on the last one.
+const MOCK_PAGE_SIZE = 100;
+const PAGED_STATUSES = {
+    '/notifications': ['NEW'],
+    '/queue': ['READY_TO_TRANSFER', 'PROCESSING'],
+};
+
+export const fetchPage = async (endpoint, cursor = null) => {
+    console.log(`[API MOCK] GET ${API_BASE_URL}${endpoint}${cursor ? `?cursor=${cursor}` : ''}`);
+    await new Promise(resolve => setTimeout(resolve, 500)); // Simulate network delay
+
+    const statuses = PAGED_STATUSES[endpoint] || [];
+    const matching = mockFileStore.filter(f => statuses.includes(f.status));
+    const offset = cursor ? Number(cursor) : 0;
+    const items = matching.slice(offset, offset + MOCK_PAGE_SIZE)
+        .map(f => ({ ...f, fileId: f.id, transferStatus: f.status }));
+    const next = offset + MOCK_PAGE_SIZE;
+    return { items, nextCursor: next < matching.length ? String(next) : null };
+};
+
+// The mock store has no server push; the page falls back to its own refetches.
+// Like the server's first resync, this tells the page to load its lists.
+export const subscribeToEvents = (onEvent, onResync) => {
+    if (onResync) onResync();
+    return () => {};
+};
+
 export default fetchAPI;
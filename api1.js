@@ -48,4 +48,45 @@ const fetchAPI = async (endpoint, method = 'GET', data = null) => {
     }
 };
 
-export default fetchAPI;
\ No newline at end of file
+// Fetches one keyset page of /queue or /notifications.
+// The body is the page's rows; the server sends the cursor for the next page in the X-Next-Cursor header,
+// and leaves it out on the last page. Resolves to { items, nextCursor }.
+// Cross-origin, the header is only readable if the server's CORS setup exposes it (exposedHeaders).
+export const fetchPage = async (endpoint, cursor = null) => {
+    const url = `${BASE_URL}${endpoint}${cursor ? `?cursor=${encodeURIComponent(cursor)}` : ''}`;
+    try {
+        console.log(`[LIVE API] GET ${url}`);
+
+        const response = await fetch(url, { headers: { 'Content-Type': 'application/json' } });
+
+        if (!response.ok) {
+            const errorText = await response.text();
+            console.error(`API FAILED: ${url} | Status: ${response.status}`, errorText);
+            throw new Error(`Server error: ${response.status} ${response.statusText}`);
+        }
+
+        const items = await response.json();
+        return { items: Array.isArray(items) ? items : [], nextCursor: response.headers.get('X-Next-Cursor') };
+
+    } catch (error) {
+        console.error(`Network/Execution Error for ${url}:`, error);
+        // Same fallback as fetchAPI: an empty last page keeps the UI usable
+        return { items: [], nextCursor: null };
+    }
+};
+
+// Opens the server-sent event stream (GET /api/ops/events).
+// EventSource reconnects on its own and resends Last-Event-ID, so only missed events are replayed.
+// Returns a function that closes the stream.
+export const subscribeToEvents = (onEvent, onResync) => {
+    const source = new EventSource(`${BASE_URL}/events`);
+    ['DISCOVERED', 'ACKNOWLEDGED', 'TRANSFER_STATE'].forEach(type => {
+        source.addEventListener(type, (message) => onEvent(JSON.parse(message.data)));
+    });
+    // Sent once the server has registered a new stream, or when it could not replay everything we missed;
+    // the caller should (re)load its lists
+    source.addEventListener('resync', () => onResync && onResync());
+    return () => source.close();
+};
+
+export default fetchAPI;
@@ -0,0 +1,144 @@
+package com.scb.rwtoolbackend.bench;
+
+import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.service.TransferLeaseManager;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Several SHARED-mode worker nodes in one JVM, each its own Spring context, against one embedded H2 database
+ * (PostgreSQL mode).
+ *
+ * Usage: ClaimSimulation [nodes=3] [rows=2000]
+ * Seeds 'rows' unowned PROCESSING rows plus rows/10 rows leased by a node that "crashed" (stale heartbeat), then
+ * waits until every row is TRANSFERRED. Prints how many rows each node claimed and ran, and fails if a row was
+ * claimed twice, never finished, or the crashed node's rows were not taken over.
+ */
+public class ClaimSimulation {
+
+    private static final String CRASHED_NODE = "crashed-node";
+    private static final long LEASE_MS = 2000;
+
+    public static void main(String[] args) throws Exception {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        String url = "jdbc:h2:mem:claims-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL";
+        Path remoteRoot = Files.createTempDirectory("claims-remote");
+        Path localRoot = Files.createTempDirectory("claims-local");
+
+        List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+        try {
+            for (int n = 0; n < nodes; n++) {
+                contexts.add(startNode(url, "node-" + n, n == 0, remoteRoot, localRoot));
+            }
+            JdbcTemplate jdbc = contexts.get(0).getBean(JdbcTemplate.class);
+            int orphaned = Math.max(1, rows / 10);
+            seed(jdbc, remoteRoot, rows, null, LocalDateTime.now());
+            seed(jdbc, remoteRoot, orphaned, CRASHED_NODE, LocalDateTime.now().minusNanos(LEASE_MS * 2_000_000L));
+
+            long started = System.nanoTime();
+            long deadline = started + TimeUnit.MINUTES.toNanos(5);
+            int total = rows + orphaned;
+            while (count(jdbc, ReportFile.TransferStatus.TRANSFERRED) < total && System.nanoTime() < deadline
+                    && count(jdbc, ReportFile.TransferStatus.FAILED) == 0) {
+                Thread.sleep(200);
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            long claimed = 0;
+            for (ConfigurableApplicationContext context : contexts) {
+                claimed += context.getBean(TransferLeaseManager.class).getClaimedCount();
+            }
+            int transferred = count(jdbc, ReportFile.TransferStatus.TRANSFERRED);
+            int stillCrashed = jdbc.queryForObject(
+                "select count(*) from report_files where lease_owner = ?", Integer.class, CRASHED_NODE);
+
+            System.out.printf("nodes=%d rows=%d orphaned=%d transferred=%d failed=%d claims=%d elapsed=%dms%n",
+                nodes, rows, orphaned, transferred, count(jdbc, ReportFile.TransferStatus.FAILED), claimed,
+                elapsedMs);
+            for (Map<String, Object> row : jdbc.queryForList("select lease_owner, count(*) as files from report_files"
+                    + " group by lease_owner order by lease_owner")) {
+                System.out.printf("  %-14s %s%n", row.get("lease_owner"), row.get("files"));
+            }
+
+            List<String> problems = new ArrayList<>();
+            if (transferred != total) {
+                problems.add((total - transferred) + " rows did not finish");
+            }
+            if (claimed != total) {
+                problems.add(claimed + " claims for " + total + " rows");
+            }
+            if (stillCrashed > 0) {
+                problems.add(stillCrashed + " rows still leased by the crashed node");
+            }
+            if (!problems.isEmpty()) {
+                System.err.println("FAILED: " + String.join("; ", problems));
+                System.exit(1);
+            }
+        } finally {
+            for (ConfigurableApplicationContext context : contexts) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(String url, String nodeId, boolean createSchema,
+                                                            Path remoteRoot, Path localRoot) {
+        return new SpringApplicationBuilder(FileTransferServiceBenchmark.BenchmarkApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=" + url,
+                "spring.jpa.hibernate.ddl-auto=" + (createSchema ? "create" : "none"),
+                "transfer.discovery.enabled=false",
+                "transfer.archive.enabled=false",
+                "transfer.remote-root=" + remoteRoot,
+                "transfer.local-root=" + localRoot,
+                "transfer.cluster.node-id=" + nodeId,
+                "transfer.cluster.claim-mode=SHARED",
+                "transfer.cluster.claim-interval-ms=100",
+                "transfer.recovery.lease-ms=" + LEASE_MS,
+                "transfer.recovery.heartbeat-ms=500",
+                "transfer.recovery.scan-interval-ms=500",
+                "logging.level.root=WARN")
+            .run();
+    }
+
+    // PROCESSING rows backed by small, distinct remote files; owner null is the shared pool
+    private static void seed(JdbcTemplate jdbc, Path remoteRoot, int count, String owner, LocalDateTime heartbeat)
+            throws Exception {
+        String sql = "insert into report_files (file_id, file_name, remote_path, destination_group, transfer_status,"
+            + " current_location, date_created, file_size, lease_owner, heartbeat_at, version)"
+            + " values (?,?,?,?,?,?,?,?,?,?,0)";
+        LocalDateTime created = LocalDateTime.now().minusMinutes(5);
+        List<Object[]> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = UUID.randomUUID().toString();
+            String name = "claim_" + id + ".csv";
+            byte[] content = ("row," + id + "\n").repeat(64).getBytes(StandardCharsets.UTF_8);
+            Path remote = Files.write(remoteRoot.resolve(name), content);
+            batch.add(new Object[] { id, name, remote.toString(), "Group_" + (i % 4),
+                ReportFile.TransferStatus.PROCESSING.name(), ReportFile.StorageLocation.REMOTE.name(),
+                Timestamp.valueOf(created.plusNanos(i * 1000L)), (long) content.length, owner,
+                Timestamp.valueOf(heartbeat) });
+        }
+        jdbc.batchUpdate(sql, batch);
+    }
+
+    private static int count(JdbcTemplate jdbc, ReportFile.TransferStatus status) {
+        return jdbc.queryForObject("select count(*) from report_files where transfer_status = ?", Integer.class,
+            status.name());
+    }
+}
@@ -0,0 +1,297 @@
+package com.scb.rwtoolbackend.bench;
+
+import com.scb.rwtoolbackend.model.BulkRequest;
+import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.model.ReportFilePage;
+import com.scb.rwtoolbackend.service.ActiveFileCache;
+import com.scb.rwtoolbackend.service.FileTransferService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * JMH microbenchmarks for the FileTransferService operations behind /api/ops, run against an embedded H2
+ * database (PostgreSQL mode) seeded with 10k, 100k and 1M report_files rows.
+ *
+ * Run: java -cp <bench classpath> com.scb.rwtoolbackend.bench.FileTransferServiceBenchmark [results.json]
+ * Results are written as JMH JSON (one entry per benchmark x rows, SampleTime percentiles included) so two runs
+ * can be diffed or loaded into the JMH visualizer.
+ *
+ * The state-changing benchmarks consume one row per invocation, so they run a fixed batch of invocations per
+ * iteration (SingleShotTime: the score is the time of the whole batch) from a pool seeded for the trial. No
+ * invocation runs out of rows and ends up measuring the not-found path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = FileTransferServiceBenchmark.WARMUP_ITERATIONS, time = 5)
+@Measurement(iterations = FileTransferServiceBenchmark.MEASUREMENT_ITERATIONS, time = 10)
+@Fork(1)
+public class FileTransferServiceBenchmark {
+
+    // Minimal boot configuration: the snapshot's own @SpringBootApplication class is not part of this module
+    @SpringBootApplication(scanBasePackages = "com.scb.rwtoolbackend")
+    @EntityScan("com.scb.rwtoolbackend.model")
+    @EnableJpaRepositories("com.scb.rwtoolbackend.dao")
+    public static class BenchmarkApplication {
+    }
+
+    static final int WARMUP_ITERATIONS = 3;
+    static final int MEASUREMENT_ITERATIONS = 5;
+
+    private static final int SEED_BATCH = 10_000;
+    // Rows one iteration of a state-changing benchmark consumes
+    private static final int FRESH_ROWS_PER_ITERATION = 1_000;
+    private static final int BULK_SIZE = 100;
+    private static final int FRESH_FILE_SIZE = 1024;
+    private static final int DISCOVERY_BATCH = 500;
+    private static final String[] GROUPS = { "HR_Metrics", "Ops_Reports", "Compliance_Data", "Finance" };
+
+    @Param({ "10000", "100000", "1000000" })
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private FileTransferService service;
+    private JdbcTemplate jdbc;
+    private Path remoteRoot;
+    private String deepQueueCursor;
+
+    private final AtomicLong discoverySequence = new AtomicLong();
+
+    // Rows for the state-changing benchmarks, all seeded with the trial: one iteration's worth per warm-up and
+    // measurement iteration. The rows an iteration moved out of the seeded status are deleted after it, so
+    // leftovers never pile up in the table the next iteration measures.
+    @State(Scope.Benchmark)
+    public abstract static class FreshRows {
+        private final ReportFile.TransferStatus status;
+        private final ConcurrentLinkedQueue<String> ids = new ConcurrentLinkedQueue<>();
+        private FileTransferServiceBenchmark bench;
+
+        FreshRows(ReportFile.TransferStatus status) {
+            this.status = status;
+        }
+
+        @Setup(Level.Trial)
+        public void seed(FileTransferServiceBenchmark bench) throws IOException {
+            this.bench = bench;
+            bench.seed(FRESH_ROWS_PER_ITERATION * (WARMUP_ITERATIONS + MEASUREMENT_ITERATIONS), status,
+                ReportFile.StorageLocation.REMOTE, ids);
+        }
+
+        String take() {
+            String id = ids.poll();
+            if (id == null) {
+                throw new IllegalStateException("Fresh " + status + " rows used up; the batch size outgrew the pool");
+            }
+            return id;
+        }
+
+        // Lets transfers started by the iteration finish first, so none of them loses its row mid-copy
+        @TearDown(Level.Iteration)
+        public void deleteUsed() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+            while (bench.jdbc.queryForObject("select count(*) from report_files where file_name like 'fresh\\_%' "
+                    + "and transfer_status = 'PROCESSING'", Long.class) > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            bench.jdbc.update("delete from report_files where file_name like 'fresh\\_%' and transfer_status <> ?",
+                status.name());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class NewRows extends FreshRows {
+        public NewRows() {
+            super(ReportFile.TransferStatus.NEW);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ReadyRows extends FreshRows {
+        public ReadyRows() {
+            super(ReportFile.TransferStatus.READY_TO_TRANSFER);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startContext() throws Exception {
+        remoteRoot = Files.createTempDirectory("bench-remote");
+        Path localRoot = Files.createTempDirectory("bench-local");
+        context = new SpringApplicationBuilder(BenchmarkApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + rows + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "spring.jpa.hibernate.ddl-auto=create",
+                "transfer.discovery.enabled=false",
+                "transfer.remote-root=" + remoteRoot,
+                "transfer.local-root=" + localRoot,
+                "logging.level.root=WARN")
+            .run();
+        service = context.getBean(FileTransferService.class);
+        jdbc = context.getBean(JdbcTemplate.class);
+
+        // 70% NEW, 20% READY_TO_TRANSFER, 10% TRANSFERRED, spread over four destination groups
+        seed(rows * 7 / 10, ReportFile.TransferStatus.NEW, ReportFile.StorageLocation.REMOTE, null);
+        seed(rows * 2 / 10, ReportFile.TransferStatus.READY_TO_TRANSFER, ReportFile.StorageLocation.REMOTE, null);
+        seed(rows / 10, ReportFile.TransferStatus.TRANSFERRED, ReportFile.StorageLocation.LOCAL, null);
+
+        awaitCacheWarmUp(context.getBean(ActiveFileCache.class));
+
+        // Cursor roughly 100 pages into the queue, to show that deep pages cost the same as the first one
+        String cursor = null;
+        for (int page = 0; page < 100; page++) {
+            ReportFilePage next = service.getTransferQueue(cursor, 100);
+            if (next.getNextCursor() == null) {
+                break;
+            }
+            cursor = next.getNextCursor();
+        }
+        deepQueueCursor = cursor;
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public ReportFilePage getTransferQueueFirstPage() {
+        return service.getTransferQueue(null, 100);
+    }
+
+    @Benchmark
+    public ReportFilePage getTransferQueueDeepPage() {
+        return service.getTransferQueue(deepQueueCursor, 100);
+    }
+
+    @Benchmark
+    public ReportFilePage getNewFileNotifications() {
+        return service.getNewFileNotifications(null, 100);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = WARMUP_ITERATIONS, batchSize = FRESH_ROWS_PER_ITERATION)
+    @Measurement(iterations = MEASUREMENT_ITERATIONS, batchSize = FRESH_ROWS_PER_ITERATION)
+    public ReportFile acknowledgeNotification(NewRows fresh) throws Exception {
+        return service.acknowledgeNotification(fresh.take());
+    }
+
+    // Measures the request-side work only; the copy itself runs on the transfer executor. The remote files exist,
+    // so those copies succeed instead of feeding the retry scheduler.
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = WARMUP_ITERATIONS, batchSize = FRESH_ROWS_PER_ITERATION)
+    @Measurement(iterations = MEASUREMENT_ITERATIONS, batchSize = FRESH_ROWS_PER_ITERATION)
+    public ReportFile initiateTransfer(ReadyRows fresh) throws Exception {
+        return service.initiateTransfer(fresh.take());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = WARMUP_ITERATIONS, batchSize = FRESH_ROWS_PER_ITERATION / BULK_SIZE)
+    @Measurement(iterations = MEASUREMENT_ITERATIONS, batchSize = FRESH_ROWS_PER_ITERATION / BULK_SIZE)
+    public Object bulkAcknowledge100(NewRows fresh) {
+        List<String> ids = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            ids.add(fresh.take());
+        }
+        BulkRequest request = new BulkRequest();
+        request.setFileIds(ids);
+        return service.acknowledgeNotifications(request);
+    }
+
+    @Benchmark
+    public List<ReportFile> discoverBatch() {
+        List<ReportFile> candidates = new ArrayList<>(DISCOVERY_BATCH);
+        for (int i = 0; i < DISCOVERY_BATCH; i++) {
+            long n = discoverySequence.incrementAndGet();
+            ReportFile file = new ReportFile();
+            file.setFileName("discovered_" + n + ".pdf");
+            file.setRemotePath(remoteRoot.resolve(GROUPS[(int) (n % GROUPS.length)])
+                .resolve("discovered_" + n + ".pdf").toString());
+            file.setDestinationGroup(GROUPS[(int) (n % GROUPS.length)]);
+            file.setFileSize(1024L * (n % 4096));
+            candidates.add(file);
+        }
+        return service.discoverNewFiles(candidates);
+    }
+
+    // With freshIds the rows are named fresh_*, 1 KB each and backed by a real remote file, and their ids are
+    // collected for the state-changing benchmarks
+    private void seed(int count, ReportFile.TransferStatus status, ReportFile.StorageLocation location,
+                      ConcurrentLinkedQueue<String> freshIds) throws IOException {
+        String sql = "insert into report_files (file_id, file_name, remote_path, destination_group, "
+            + "transfer_status, current_location, date_created, file_size, version) values (?,?,?,?,?,?,?,?,0)";
+        LocalDateTime base = LocalDateTime.now().minusDays(30);
+        for (int offset = 0; offset < count; offset += SEED_BATCH) {
+            List<Object[]> batch = new ArrayList<>(SEED_BATCH);
+            for (int i = offset; i < Math.min(count, offset + SEED_BATCH); i++) {
+                String id = UUID.randomUUID().toString();
+                String group = GROUPS[i % GROUPS.length];
+                String name = (freshIds != null ? "fresh" : status.name().toLowerCase()) + "_" + id + ".pdf";
+                Path remotePath = remoteRoot.resolve(group).resolve(name);
+                long size = 1024L * (i % 4096);
+                if (freshIds != null) {
+                    Files.createDirectories(remotePath.getParent());
+                    Files.write(remotePath, new byte[FRESH_FILE_SIZE]);
+                    size = FRESH_FILE_SIZE;
+                    freshIds.add(id);
+                }
+                batch.add(new Object[] { id, name, remotePath.toString(), group, status.name(), location.name(),
+                    Timestamp.valueOf(base.plusSeconds(i)), size });
+            }
+            jdbc.batchUpdate(sql, batch);
+        }
+    }
+
+    private static void awaitCacheWarmUp(ActiveFileCache cache) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(5);
+        while (!cache.isReady() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String resultFile = args.length > 0 ? args[0] : "jmh-file-transfer-service.json";
+        Options options = new OptionsBuilder()
+            .include(FileTransferServiceBenchmark.class.getSimpleName())
+            .resultFormat(ResultFormatType.JSON)
+            .result(resultFile)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,348 @@
+package com.scb.rwtoolbackend.bench;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * HTTP load against a running instance's /api/ops endpoints, closed-loop or open-loop.
+ *
+ * Usage: OpsLoadTest <baseUrl> [load=32] [durationSec=60] [mix=queue:80,notifications:15,acknowledge:5]
+ *                    [results.json]
+ * A plain number as load runs that many worker threads, each sending one request at a time (closed loop). A rate
+ * such as 500/s sends requests at that fixed arrival rate whatever the server's latency (open loop), and measures
+ * each one from the moment it was due, so a stalled server shows up as latency instead of as fewer requests.
+ * Requests pick the endpoint by the weighted mix (queue, notifications, history, acknowledge, transfer).
+ * acknowledge takes ids from /notifications pages fetched up front; transfer takes the ids this run acknowledged.
+ * Prints throughput and p50/p90/p99/max latency per endpoint and writes the same numbers as JSON, so runs before
+ * and after a change can be compared.
+ *
+ * 429 and 503 answers carrying Retry-After are counted as shed, not errors. The p50-max columns cover the requests
+ * the server accepted; the all_ columns cover every request, shed ones included, which is what a client sees. To
+ * see what admission control does to the tail, run the same mix against an instance with
+ * ops.admission.enabled=false and again with true, at a load well above spring.datasource.hikari.maximum-pool-size,
+ * e.g. mix queue:40,notifications:20,history:20,acknowledge:10,transfer:10. Open loop at a rate above what the
+ * instance sustains is the fairer comparison: a closed loop slows down with the server and hides the backlog.
+ */
+public class OpsLoadTest {
+
+    private static final Pattern FILE_ID = Pattern.compile("\"fileId\"\\s*:\\s*\"([^\"]+)\"");
+
+    // Latencies of one endpoint; written by one worker in closed loop, by the client's callbacks in open loop
+    private static final class Samples {
+        long[] nanos = new long[1 << 16];
+        int count;
+        long[] shedNanos = new long[1 << 10];
+        int shed;
+        int errors;
+
+        synchronized void add(long value) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = value;
+        }
+
+        synchronized void addShed(long value) {
+            if (shed == shedNanos.length) {
+                shedNanos = Arrays.copyOf(shedNanos, shed * 2);
+            }
+            shedNanos[shed++] = value;
+        }
+
+        synchronized void addError(long value) {
+            add(value);
+            errors++;
+        }
+    }
+
+    // The endpoint mix plus the id queues acknowledge and transfer draw from
+    private static final class Workload {
+        final String baseUrl;
+        final String[] endpoints;
+        final int[] cumulative;
+        final ConcurrentLinkedQueue<String> newIds;
+        final ConcurrentLinkedQueue<String> readyIds = new ConcurrentLinkedQueue<>();
+
+        Workload(String baseUrl, Map<String, Integer> mix, ConcurrentLinkedQueue<String> newIds) {
+            this.baseUrl = baseUrl;
+            this.endpoints = mix.keySet().toArray(new String[0]);
+            this.cumulative = new int[endpoints.length];
+            int total = 0;
+            for (int i = 0; i < endpoints.length; i++) {
+                total += mix.get(endpoints[i]);
+                cumulative[i] = total;
+            }
+            this.newIds = newIds;
+        }
+
+        int pick() {
+            int roll = ThreadLocalRandom.current().nextInt(cumulative[cumulative.length - 1]);
+            int i = 0;
+            while (roll >= cumulative[i]) {
+                i++;
+            }
+            return i;
+        }
+
+        String takeId(String endpoint) {
+            return endpoint.equals("acknowledge") ? newIds.poll()
+                : endpoint.equals("transfer") ? readyIds.poll() : null;
+        }
+
+        // Files one answer under its endpoint's samples and moves the id along
+        void record(Samples s, String endpoint, String id, HttpResponse<Void> response, long elapsed) {
+            int status = response.statusCode();
+            if ((status == 429 || status == 503) && response.headers().firstValue("Retry-After").isPresent()) {
+                s.addShed(elapsed);
+                // Put the id back so a later pick can try it again
+                if (id != null) {
+                    (endpoint.equals("acknowledge") ? newIds : readyIds).add(id);
+                }
+            } else if (status >= 400) {
+                s.addError(elapsed);
+            } else {
+                s.add(elapsed);
+                if (id != null && endpoint.equals("acknowledge")) {
+                    readyIds.add(id);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println(
+                "Usage: OpsLoadTest <baseUrl> [concurrency | rate/s] [durationSec] [mix] [results.json]");
+            System.exit(1);
+        }
+        String baseUrl = args[0].endsWith("/") ? args[0].substring(0, args[0].length() - 1) : args[0];
+        String load = args.length > 1 ? args[1] : "32";
+        boolean openLoop = load.endsWith("/s");
+        int concurrency = openLoop ? 0 : Integer.parseInt(load);
+        double rate = openLoop ? Double.parseDouble(load.substring(0, load.length() - 2)) : 0;
+        int durationSec = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        Map<String, Integer> mix = parseMix(args.length > 3 ? args[3] : "queue:80,notifications:15,acknowledge:5");
+        String resultFile = args.length > 4 ? args[4] : "ops-load-test.json";
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        ConcurrentLinkedQueue<String> newIds = mix.containsKey("acknowledge")
+            ? prefetchNewIds(client, baseUrl) : new ConcurrentLinkedQueue<>();
+        Workload workload = new Workload(baseUrl, mix, newIds);
+        String[] endpoints = workload.endpoints;
+
+        long started = System.nanoTime();
+        long deadline = started + Duration.ofSeconds(durationSec).toNanos();
+        List<Map<String, Samples>> perThread = openLoop
+            ? Collections.singletonList(runOpenLoop(client, workload, rate, started, deadline))
+            : runClosedLoop(client, workload, concurrency, deadline);
+        double elapsedSec = (System.nanoTime() - started) / 1_000_000_000.0;
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\"baseUrl\":\"").append(baseUrl).append("\",")
+            .append(openLoop ? String.format(Locale.ROOT, "\"ratePerSec\":%.1f", rate)
+                : "\"concurrency\":" + concurrency)
+            .append(",\"durationSec\":").append(String.format(Locale.ROOT, "%.1f", elapsedSec))
+            .append(",\"endpoints\":{");
+        System.out.printf("endpoint,requests,errors,req_per_s,p50_ms,p90_ms,p99_ms,max_ms,shed,shed_mean_ms,"
+            + "all_p50_ms,all_p90_ms,all_p99_ms,all_max_ms%n");
+        for (int i = 0; i < endpoints.length; i++) {
+            Samples merged = new Samples();
+            for (Map<String, Samples> samples : perThread) {
+                Samples s = samples.get(endpoints[i]);
+                for (int j = 0; j < s.count; j++) {
+                    merged.add(s.nanos[j]);
+                }
+                for (int j = 0; j < s.shed; j++) {
+                    merged.addShed(s.shedNanos[j]);
+                }
+                merged.errors += s.errors;
+            }
+            long[] accepted = Arrays.copyOf(merged.nanos, merged.count);
+            Arrays.sort(accepted);
+            long[] shed = Arrays.copyOf(merged.shedNanos, merged.shed);
+            long[] all = Arrays.copyOf(accepted, accepted.length + shed.length);
+            System.arraycopy(shed, 0, all, accepted.length, shed.length);
+            Arrays.sort(all);
+            double reqPerSec = merged.count / elapsedSec;
+            double shedMean = shed.length == 0 ? 0 : Arrays.stream(shed).sum() / 1_000_000.0 / shed.length;
+            System.out.printf(Locale.ROOT, "%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%d,%.2f,%.2f,%.2f,%.2f,%.2f%n",
+                endpoints[i], merged.count, merged.errors, reqPerSec, percentileMs(accepted, 0.50),
+                percentileMs(accepted, 0.90), percentileMs(accepted, 0.99), maxMs(accepted), merged.shed, shedMean,
+                percentileMs(all, 0.50), percentileMs(all, 0.90), percentileMs(all, 0.99), maxMs(all));
+            json.append(i == 0 ? "" : ",").append('"').append(endpoints[i]).append("\":")
+                .append(String.format(Locale.ROOT,
+                    "{\"requests\":%d,\"errors\":%d,\"reqPerSec\":%.1f,\"p50Ms\":%.3f,\"p90Ms\":%.3f,"
+                        + "\"p99Ms\":%.3f,\"maxMs\":%.3f,\"shed\":%d,\"shedMeanMs\":%.3f,"
+                        + "\"all\":{\"p50Ms\":%.3f,\"p90Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}}",
+                    merged.count, merged.errors, reqPerSec, percentileMs(accepted, 0.50),
+                    percentileMs(accepted, 0.90), percentileMs(accepted, 0.99), maxMs(accepted), merged.shed,
+                    shedMean, percentileMs(all, 0.50), percentileMs(all, 0.90), percentileMs(all, 0.99),
+                    maxMs(all)));
+        }
+        json.append("}}");
+        Files.write(Paths.get(resultFile), json.toString().getBytes());
+    }
+
+    // Each worker sends its next request once the previous one answered
+    private static List<Map<String, Samples>> runClosedLoop(HttpClient client, Workload workload, int concurrency,
+                                                            long deadline) throws InterruptedException {
+        List<Map<String, Samples>> perThread = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int t = 0; t < concurrency; t++) {
+            Map<String, Samples> samples = newSamples(workload.endpoints);
+            perThread.add(samples);
+            Thread worker = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        String endpoint = workload.endpoints[workload.pick()];
+                        String id = workload.takeId(endpoint);
+                        HttpRequest request = buildRequest(workload.baseUrl, endpoint, id);
+                        Samples s = samples.get(endpoint);
+                        long begin = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            workload.record(s, endpoint, id, response, System.nanoTime() - begin);
+                        } catch (IOException e) {
+                            s.addError(System.nanoTime() - begin);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "ops-load-" + t);
+            worker.start();
+        }
+        done.await();
+        return perThread;
+    }
+
+    // Requests are due every 1/rate seconds and sent asynchronously, so a slow answer never delays the next one;
+    // latency counts from when the request was due, including any time the sender fell behind
+    private static Map<String, Samples> runOpenLoop(HttpClient client, Workload workload, double rate, long started,
+                                                    long deadline) {
+        Map<String, Samples> samples = newSamples(workload.endpoints);
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+        double periodNanos = 1_000_000_000.0 / rate;
+        for (long n = 0; ; n++) {
+            long due = started + (long) (n * periodNanos);
+            if (due >= deadline) {
+                break;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String endpoint = workload.endpoints[workload.pick()];
+            String id = workload.takeId(endpoint);
+            Samples s = samples.get(endpoint);
+            inFlight.add(client.sendAsync(buildRequest(workload.baseUrl, endpoint, id),
+                    HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long elapsed = System.nanoTime() - due;
+                    if (error != null) {
+                        s.addError(elapsed);
+                    } else {
+                        workload.record(s, endpoint, id, response, elapsed);
+                    }
+                }));
+        }
+        // Answers still outstanding at the deadline are part of the run
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture<?>[0]))
+            .exceptionally(e -> null)
+            .join();
+        return samples;
+    }
+
+    private static Map<String, Samples> newSamples(String[] endpoints) {
+        Map<String, Samples> samples = new LinkedHashMap<>();
+        for (String endpoint : endpoints) {
+            samples.put(endpoint, new Samples());
+        }
+        return samples;
+    }
+
+    private static HttpRequest buildRequest(String baseUrl, String endpoint, String id) {
+        switch (endpoint) {
+            case "queue":
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/ops/queue?limit=100")).GET().build();
+            case "notifications":
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/ops/notifications?limit=100")).GET().build();
+            case "history":
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/ops/history?limit=100")).GET().build();
+            case "acknowledge":
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/ops/acknowledge/"
+                        + (id != null ? id : "missing")))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+            case "transfer":
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/api/ops/transfer/"
+                        + (id != null ? id : "missing")))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build();
+            default:
+                throw new IllegalArgumentException("Unknown endpoint in mix: " + endpoint);
+        }
+    }
+
+    // Walks /notifications with the keyset cursor so acknowledge requests hit real NEW rows
+    private static ConcurrentLinkedQueue<String> prefetchNewIds(HttpClient client, String baseUrl)
+            throws IOException, InterruptedException {
+        ConcurrentLinkedQueue<String> ids = new ConcurrentLinkedQueue<>();
+        String cursor = null;
+        for (int page = 0; page < 200; page++) {
+            String url = baseUrl + "/api/ops/notifications?limit=500" + (cursor == null ? "" : "&cursor=" + cursor);
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+            Matcher m = FILE_ID.matcher(response.body());
+            while (m.find()) {
+                ids.add(m.group(1));
+            }
+            cursor = response.headers().firstValue("X-Next-Cursor").orElse(null);
+            if (cursor == null) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    private static Map<String, Integer> parseMix(String spec) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            mix.put(kv[0], kv.length > 1 ? Integer.parseInt(kv[1]) : 1);
+        }
+        return mix;
+    }
+
+    private static double maxMs(long[] sorted) {
+        return sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0;
+    }
+
+    private static double percentileMs(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
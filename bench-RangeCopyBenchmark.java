@@ -0,0 +1,95 @@
+package com.scb.rwtoolbackend.bench;
+
+import com.scb.rwtoolbackend.service.BandwidthLimiter;
+import com.scb.rwtoolbackend.service.FileCopyEngine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Serial vs N-way range copy throughput on local disk.
+ *
+ * Usage: RangeCopyBenchmark <workDir> [sizeMb=2048] [rangeMb=128] [ways=1,2,4,8] [rounds=3]
+ * Prints one line per mode with the best-of-rounds MB/s. The page cache is not dropped between runs, so use a
+ * file larger than RAM (or drop caches externally) when measuring cold-disk numbers.
+ */
+public class RangeCopyBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: RangeCopyBenchmark <workDir> [sizeMb] [rangeMb] [ways] [rounds]");
+            System.exit(1);
+        }
+        Path workDir = Paths.get(args[0]);
+        long sizeMb = args.length > 1 ? Long.parseLong(args[1]) : 2048;
+        long rangeMb = args.length > 2 ? Long.parseLong(args[2]) : 128;
+        String[] ways = (args.length > 3 ? args[3] : "1,2,4,8").split(",");
+        int rounds = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+
+        Files.createDirectories(workDir);
+        Path source = workDir.resolve("bench-source.bin");
+        Path target = workDir.resolve("bench-target.bin");
+        writeRandomFile(source, sizeMb * 1024 * 1024);
+
+        long rangeSize = rangeMb * 1024 * 1024;
+        System.out.printf("mode,ways,size_mb,best_mb_per_s%n");
+
+        FileCopyEngine serial = new FileCopyEngine(64L * 1024 * 1024, Long.MAX_VALUE, rangeSize, 1,
+            BandwidthLimiter.unlimited());
+        double best = 0;
+        for (int round = 0; round < rounds; round++) {
+            Files.deleteIfExists(target);
+            long start = System.nanoTime();
+            serial.copy(source, target, 0L, offset -> { });
+            best = Math.max(best, throughput(sizeMb, System.nanoTime() - start));
+        }
+        serial.shutdown();
+        System.out.printf("serial,1,%d,%.1f%n", sizeMb, best);
+
+        for (String w : ways) {
+            int n = Integer.parseInt(w.trim());
+            FileCopyEngine engine = new FileCopyEngine(64L * 1024 * 1024, 0L, rangeSize, n,
+                BandwidthLimiter.unlimited());
+            best = 0;
+            for (int round = 0; round < rounds; round++) {
+                Files.deleteIfExists(target);
+                long start = System.nanoTime();
+                engine.copyRanges(source, target, rangeSize, new BitSet(), index -> { });
+                best = Math.max(best, throughput(sizeMb, System.nanoTime() - start));
+            }
+            engine.shutdown();
+            System.out.printf("ranges,%d,%d,%.1f%n", n, sizeMb, best);
+        }
+
+        Files.deleteIfExists(target);
+        Files.deleteIfExists(source);
+    }
+
+    private static double throughput(long sizeMb, long nanos) {
+        return sizeMb / (nanos / 1_000_000_000.0);
+    }
+
+    private static void writeRandomFile(Path file, long size) throws IOException {
+        ByteBuffer block = ByteBuffer.allocateDirect(1024 * 1024);
+        byte[] random = new byte[block.capacity()];
+        ThreadLocalRandom.current().nextBytes(random);
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (long written = 0; written < size; written += block.capacity()) {
+                block.clear();
+                block.put(random);
+                block.flip();
+                while (block.hasRemaining()) {
+                    out.write(block);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.scb.rwtoolbackend.bench;
+
+import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.service.TransferStateMachine;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Contention check for the compare-and-set transitions of TransferStateMachine, against an embedded H2 database
+ * (PostgreSQL mode) with the application's connection pool.
+ *
+ * Usage: TransitionContention [threads=32] [rows=200]
+ * For every row, 'threads' threads are released together on the same transition and exactly one must see true:
+ *   1. READY_TO_TRANSFER -> PROCESSING, all threads on the same transition (double "Transfer" click);
+ *   2. PROCESSING -> TRANSFERRED or FAILED, half the threads each (worker result racing a recovery).
+ * Fails if any row has zero or several winners, or if the row's final status is not the winner's target.
+ */
+public class TransitionContention {
+
+    private static final ReportFile.TransferStatus READY = ReportFile.TransferStatus.READY_TO_TRANSFER;
+    private static final ReportFile.TransferStatus PROCESSING = ReportFile.TransferStatus.PROCESSING;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                FileTransferServiceBenchmark.BenchmarkApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:contention-" + UUID.randomUUID()
+                    + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "spring.datasource.hikari.maximum-pool-size=" + threads,
+                "spring.jpa.hibernate.ddl-auto=create",
+                "transfer.discovery.enabled=false",
+                "transfer.archive.enabled=false",
+                "logging.level.root=WARN")
+            .run();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            TransferStateMachine stateMachine = context.getBean(TransferStateMachine.class);
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            List<String> ids = seed(jdbc, rows);
+
+            List<String> problems = new ArrayList<>();
+            long started = System.nanoTime();
+            for (String id : ids) {
+                race(pool, threads, problems, jdbc, id, t -> stateMachine.transition(id, READY, PROCESSING),
+                    t -> PROCESSING);
+                race(pool, threads, problems, jdbc, id,
+                    t -> stateMachine.transition(id, PROCESSING, target(t)), TransitionContention::target);
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+            System.out.printf("threads=%d rows=%d races=%d problems=%d elapsed=%dms%n",
+                threads, rows, rows * 2, problems.size(), elapsedMs);
+            if (!problems.isEmpty()) {
+                problems.stream().limit(20).forEach(p -> System.err.println("  " + p));
+                System.err.println("FAILED: " + problems.size() + " races without exactly one winner");
+                System.exit(1);
+            }
+        } finally {
+            pool.shutdownNow();
+            context.close();
+        }
+    }
+
+    private interface Attempt {
+        boolean run(int thread) throws Exception;
+    }
+
+    private interface Target {
+        ReportFile.TransferStatus of(int thread);
+    }
+
+    // Releases every thread on the same row at once and checks the winner count and the resulting status
+    private static void race(ExecutorService pool, int threads, List<String> problems, JdbcTemplate jdbc,
+                             String id, Attempt attempt, Target target) throws Exception {
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            results.add(pool.submit(() -> {
+                ready.countDown();
+                go.await();
+                return attempt.run(thread);
+            }));
+        }
+        ready.await();
+        go.countDown();
+
+        int winners = 0;
+        int winner = -1;
+        for (int t = 0; t < threads; t++) {
+            if (results.get(t).get()) {
+                winners++;
+                winner = t;
+            }
+        }
+        String status = jdbc.queryForObject("select transfer_status from report_files where file_id = ?",
+            String.class, id);
+        if (winners != 1) {
+            problems.add(id + ": " + winners + " winners");
+        } else if (!target.of(winner).name().equals(status)) {
+            problems.add(id + ": winner moved it to " + target.of(winner) + " but the row is " + status);
+        }
+    }
+
+    private static ReportFile.TransferStatus target(int thread) {
+        return thread % 2 == 0 ? ReportFile.TransferStatus.TRANSFERRED : ReportFile.TransferStatus.FAILED;
+    }
+
+    private static List<String> seed(JdbcTemplate jdbc, int count) {
+        String sql = "insert into report_files (file_id, file_name, remote_path, destination_group, transfer_status,"
+            + " current_location, date_created, version) values (?,?,?,?,?,?,?,0)";
+        List<String> ids = new ArrayList<>(count);
+        List<Object[]> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = UUID.randomUUID().toString();
+            ids.add(id);
+            batch.add(new Object[] { id, "race_" + i + ".csv", "/remote/race_" + i + ".csv", "Group_" + (i % 4),
+                READY.name(), ReportFile.StorageLocation.REMOTE.name(), Timestamp.valueOf(LocalDateTime.now()) });
+        }
+        jdbc.batchUpdate(sql, batch);
+        return ids;
+    }
+}
@@ -0,0 +1,56 @@
+package com.scb.rwtoolbackend.config;
+
+import com.scb.rwtoolbackend.service.AdmissionControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/*
+ * Admits one kind of request through AdmissionControl before its handler runs and releases the permit when the
+ * request completes. A request that gets no permit is answered straight away with 'rejectStatus' and Retry-After,
+ * without reaching the controller or the database.
+ */
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".permit";
+
+    private final AdmissionControl admissionControl;
+    private final AdmissionControl.Kind kind;
+    private final String method;
+    private final HttpStatus rejectStatus;
+
+    // 'method' limits admission to one HTTP method on the mapped paths; null applies it to all of them
+    public AdmissionInterceptor(AdmissionControl admissionControl, AdmissionControl.Kind kind, String method,
+                                HttpStatus rejectStatus) {
+        this.admissionControl = admissionControl;
+        this.kind = kind;
+        this.method = method;
+        this.rejectStatus = rejectStatus;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (method != null && !method.equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        if (!admissionControl.tryEnter(kind)) {
+            response.setStatus(rejectStatus.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(admissionControl.getRetryAfterSeconds()));
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, kind);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) == kind) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            admissionControl.exit(kind);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.scb.rwtoolbackend.config;
+
+import com.scb.rwtoolbackend.dao.ReportFileRepository;
+import com.scb.rwtoolbackend.service.FileTransferService;
+import com.scb.rwtoolbackend.service.TransferMetrics;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MetricsConfig {
+
+    // Times every FileTransferService and ReportFileRepository call without touching each method.
+    // Static so the post-processor is created before the beans it wraps; TransferMetrics is resolved on first use.
+    @Bean
+    public static BeanPostProcessor operationTimingPostProcessor(ObjectProvider<TransferMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ReportFileRepository) {
+                    ProxyFactory proxy = new ProxyFactory(bean);
+                    proxy.addInterface(ReportFileRepository.class);
+                    proxy.addAdvice(timing("ops.repository", metrics));
+                    return proxy.getProxy();
+                }
+                if (bean instanceof FileTransferService) {
+                    ProxyFactory proxy = new ProxyFactory(bean);
+                    proxy.setProxyTargetClass(true);
+                    proxy.addAdvice(timing("ops.service", metrics));
+                    return proxy.getProxy();
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static MethodInterceptor timing(String meterName, ObjectProvider<TransferMetrics> provider) {
+        return new MethodInterceptor() {
+            private volatile TransferMetrics metrics;
+
+            @Override
+            public Object invoke(MethodInvocation invocation) throws Throwable {
+                if (invocation.getMethod().getDeclaringClass() == Object.class) {
+                    return invocation.proceed();
+                }
+                long started = System.nanoTime();
+                boolean success = false;
+                try {
+                    Object result = invocation.proceed();
+                    success = true;
+                    return result;
+                } finally {
+                    TransferMetrics m = metrics;
+                    if (m == null) {
+                        m = metrics = provider.getIfAvailable();
+                    }
+                    if (m != null) {
+                        m.operationTimer(meterName, invocation.getMethod(), success)
+                            .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package com.scb.rwtoolbackend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceConfig {
+
+    // JDBC batching for saveAll: discovery inserts one batch per round trip instead of one row per round trip
+    @Bean
+    public HibernatePropertiesCustomizer batchingCustomizer(
+            @Value("${transfer.discovery.batch-size:500}") int batchSize) {
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", batchSize);
+            properties.putIfAbsent("hibernate.order_inserts", true);
+            properties.putIfAbsent("hibernate.order_updates", true);
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.scb.rwtoolbackend.config;
+
+import com.scb.rwtoolbackend.service.AdmissionControl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    // StreamingResponseBody downloads and exports run as async requests; the container default (30s on Tomcat)
+    // would cut off a large file or a full-history export midway. SSE emitters set their own timeout.
+    @Value("${ops.streaming.timeout-ms:3600000}")
+    private long streamingTimeoutMillis;
+
+    @Value("${ops.admission.enabled:false}")
+    private boolean admissionEnabled;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(streamingTimeoutMillis);
+    }
+
+    // Opt-in admission control (see AdmissionControl). Transfer initiations over the limit get 429, since the
+    // caller should slow down; list reads over the limit get 503, since the database is saturated.
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!admissionEnabled) {
+            return;
+        }
+        registry.addInterceptor(new AdmissionInterceptor(admissionControl, AdmissionControl.Kind.TRANSFER, "POST",
+                HttpStatus.TOO_MANY_REQUESTS))
+            .addPathPatterns("/api/ops/transfer", "/api/ops/transfer/**");
+        registry.addInterceptor(new AdmissionInterceptor(admissionControl, AdmissionControl.Kind.LIST, "GET",
+                HttpStatus.SERVICE_UNAVAILABLE))
+            .addPathPatterns("/api/ops/notifications", "/api/ops/queue", "/api/ops/history");
+    }
+}
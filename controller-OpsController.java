@@ -1,30 +1,124 @@
 package com.scb.rwtoolbackend.controller;
 
+import com.scb.rwtoolbackend.model.BulkRequest;
+import com.scb.rwtoolbackend.model.BulkResult;
 import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.model.ReportFileHistory;
+import com.scb.rwtoolbackend.model.ReportFileHistoryPage;
+import com.scb.rwtoolbackend.model.ReportFilePage;
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+import com.scb.rwtoolbackend.service.ActiveFileCache;
+import com.scb.rwtoolbackend.service.BandwidthLimiter;
+import com.scb.rwtoolbackend.service.FileSearchIndex;
 import com.scb.rwtoolbackend.service.FileTransferService;
+import com.scb.rwtoolbackend.service.InventoryReconciler;
+import com.scb.rwtoolbackend.service.LocalStorageTier;
+import com.scb.rwtoolbackend.service.OpsEventBroadcaster;
+import com.scb.rwtoolbackend.service.TransferExecutor;
+import com.scb.rwtoolbackend.service.TransferExporter;
+import com.scb.rwtoolbackend.service.TransferCounters;
+import com.scb.rwtoolbackend.service.TransferMetrics;
+import com.scb.rwtoolbackend.service.TransferPipeline;
+import com.scb.rwtoolbackend.service.TransferRetryScheduler;
+import com.scb.rwtoolbackend.service.TransferScheduler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/ops")
 public class OpsController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private FileTransferService fileTransferService;
 
+    @Autowired
+    private OpsEventBroadcaster eventBroadcaster;
+
+    @Autowired
+    private ActiveFileCache activeFileCache;
+
+    @Autowired
+    private TransferScheduler transferScheduler;
+
+    @Autowired
+    private BandwidthLimiter bandwidthLimiter;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    @Autowired
+    private TransferPipeline transferPipeline;
+
+    @Autowired
+    private InventoryReconciler inventoryReconciler;
+
+    @Autowired
+    private TransferRetryScheduler retryScheduler;
+
+    @Autowired
+    private TransferCounters transferCounters;
+
+    @Autowired
+    private LocalStorageTier localStorage;
+
     // 1. GET /api/ops/notifications - Fetches NEW files waiting for Ops action
+    // Keyset-paginated: pass the X-Next-Cursor header of the previous response as ?cursor= for the next page.
+    // Carries an ETag; an unchanged page answers 304 to If-None-Match.
     @GetMapping("/notifications")
-    public ResponseEntity<List<ReportFile>> getNewFileNotifications() {
-        return ResponseEntity.ok(fileTransferService.getNewFileNotifications());
+    public ResponseEntity<List<ReportFileSummary>> getNewFileNotifications(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            WebRequest request) {
+        String etag = fileTransferService.getNotificationsEtag(cursor, limit);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            return pageResponse(fileTransferService.getNewFileNotifications(cursor, limit), etag);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
     }
 
-    // 2. GET /api/ops/queue - Fetches files ready or processing in the main table
+    // 2. GET /api/ops/queue - Fetches files ready or processing in the main table (paginated like /notifications)
     @GetMapping("/queue")
-    public ResponseEntity<List<ReportFile>> getTransferQueue() {
-        return ResponseEntity.ok(fileTransferService.getTransferQueue());
+    public ResponseEntity<List<ReportFileSummary>> getTransferQueue(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            WebRequest request) {
+        String etag = fileTransferService.getTransferQueueEtag(cursor, limit);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            return pageResponse(fileTransferService.getTransferQueue(cursor, limit), etag);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
     }
 
     // 3. POST /api/ops/acknowledge/{fileId} - Ops clicks "Get File" in the notification sidebar
@@ -39,13 +133,258 @@ public class OpsController {
     }
 
     // 4. POST /api/ops/transfer/{fileId} - Ops clicks "Transfer" in the main table
+    // Returns 202 once the file is PROCESSING; the copy completes on the transfer executor, and a failed copy is
+    // retried automatically (see (5) and (16)). 404 for an unknown file, 409 when it is not READY_TO_TRANSFER.
     @PostMapping("/transfer/{fileId}")
     public ResponseEntity<ReportFile> initiateTransfer(@PathVariable String fileId) {
         try {
-            ReportFile transferredFile = fileTransferService.initiateTransfer(fileId);
-            return ResponseEntity.ok(transferredFile);
+            ReportFile processingFile = fileTransferService.initiateTransfer(fileId);
+            return ResponseEntity.accepted().body(processingFile);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(null); 
         }
     }
+
+    // 5. GET /api/ops/transfer/{fileId} - Polls the state of a transfer started via (4)
+    // FAILED carries the last error; the row's attemptCount and nextRetryAt show when it runs again.
+    @GetMapping("/transfer/{fileId}")
+    public ResponseEntity<TransferExecutor.TransferJob> getTransferJob(@PathVariable String fileId) {
+        try {
+            return ResponseEntity.ok(fileTransferService.getTransferJob(fileId));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // 6. GET /api/ops/events - Server-sent stream of discovery, acknowledge and transfer-state events
+    // Reconnecting clients send Last-Event-ID (EventSource does this automatically) to receive only missed events.
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam) {
+        return eventBroadcaster.subscribe(lastEventId != null ? lastEventId : lastEventIdParam);
+    }
+
+    // 8. POST /api/ops/acknowledge - Bulk "Get File": { "fileIds": [...] } or { "destinationGroup": "X" }
+    @PostMapping("/acknowledge")
+    public ResponseEntity<BulkResult> acknowledgeNotifications(@RequestBody BulkRequest request) {
+        try {
+            return ResponseEntity.ok(fileTransferService.acknowledgeNotifications(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    // 9. POST /api/ops/transfer - Bulk "Transfer": same body as (8), copies are enqueued on the executor
+    @PostMapping("/transfer")
+    public ResponseEntity<BulkResult> initiateTransfers(@RequestBody BulkRequest request) {
+        try {
+            return ResponseEntity.accepted().body(fileTransferService.initiateTransfers(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+    }
+
+    // 7. GET /api/ops/cache/stats - Size and hit rate of the active-file cache behind (1) and (2)
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(activeFileCache.getStats());
+    }
+
+    // 10. GET /api/ops/scheduler/stats - Queue depth, running transfers and wait times per destinationGroup
+    @GetMapping("/scheduler/stats")
+    public ResponseEntity<Map<String, Object>> getSchedulerStats() {
+        Map<String, Object> stats = transferScheduler.getStats();
+        stats.put("bandwidthBytesPerSecond", bandwidthLimiter.getBytesPerSecond());
+        stats.put("bandwidthThrottledMs", bandwidthLimiter.getThrottledMillis());
+        stats.put("retriesWaiting", retryScheduler.getWaitingCount());
+        return ResponseEntity.ok(stats);
+    }
+
+    // 11. GET /api/ops/metrics - Operation and query latencies, transfer throughput, status times, queue depths
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        return ResponseEntity.ok(transferMetrics.snapshot());
+    }
+
+    // 12. GET /api/ops/files/{fileId}/content - Downloads a transferred file
+    // Compressed copies are passed through with Content-Encoding: gzip when the client accepts it and are
+    // stream-decompressed otherwise; either way the file is never buffered whole in memory. A file whose local copy
+    // was evicted is streamed from its remote source while the copy is re-fetched (see (19)).
+    @GetMapping("/files/{fileId}/content")
+    public ResponseEntity<StreamingResponseBody> downloadFile(
+            @PathVariable String fileId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ReportFile file;
+        InputStream content;
+        boolean passThrough;
+        try {
+            file = fileTransferService.getDownloadableFile(fileId);
+            boolean acceptsGzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            InputStream stored = openLocalCopy(file, acceptsGzip);
+            passThrough = stored != null && file.getStorageFormat() == ReportFile.StorageFormat.GZIP && acceptsGzip;
+            content = stored != null ? stored : Files.newInputStream(Paths.get(file.getRemotePath()));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.GONE).build();
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(file.getFileName()).build().toString());
+        if (file.getStorageFormat() == ReportFile.StorageFormat.GZIP) {
+            response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (passThrough) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        } else if (file.getFileSize() != null) {
+            response.contentLength(file.getFileSize());
+        }
+        return response.body(out -> {
+            try (InputStream in = content) {
+                in.transferTo(out);
+            }
+        });
+    }
+
+    // 13. GET /api/ops/reconciliation - Progress of the startup inventory walk; 503 until it has caught up
+    @GetMapping("/reconciliation")
+    public ResponseEntity<Map<String, Object>> getReconciliation() {
+        return ResponseEntity.status(inventoryReconciler.isCaughtUp() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+            .body(inventoryReconciler.getStatus());
+    }
+
+    // 14. GET /api/ops/history - Archived transfers, newest first, from the partitioned history table
+    // Optional destinationGroup and [from, to) window on dateTransferred; paginated like /notifications.
+    @GetMapping("/history")
+    public ResponseEntity<List<ReportFileHistory>> getHistory(
+            @RequestParam(required = false) String destinationGroup,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        ReportFileHistoryPage page;
+        try {
+            page = fileTransferService.getHistory(destinationGroup, from, to, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
+    // 15. GET /api/ops/search - Case-insensitive substring (match=substring) or prefix (match=prefix) search on
+    // fileName and fileId, filtered by destinationGroup, status (repeatable) and a [from, to) window on dateCreated.
+    // Served from the in-memory n-gram index, paginated with X-Next-Cursor; 503 while the index is loading.
+    @GetMapping("/search")
+    public ResponseEntity<List<ReportFileSummary>> searchFiles(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "substring") String match,
+            @RequestParam(required = false) String destinationGroup,
+            @RequestParam(required = false) Set<ReportFile.TransferStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        ReportFilePage page;
+        try {
+            page = fileTransferService.searchFiles(new FileSearchIndex.Query(q, "prefix".equalsIgnoreCase(match),
+                destinationGroup, status, from, to), cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+        if (page == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        return pageResponse(page, null);
+    }
+
+    // 16. POST /api/ops/transfer/{fileId}/requeue - Puts a FAILED or dead-lettered file back in the transfer queue
+    // with its attempt count reset; 409 if the file is in any other status.
+    @PostMapping("/transfer/{fileId}/requeue")
+    public ResponseEntity<ReportFile> requeueTransfer(@PathVariable String fileId) {
+        try {
+            return ResponseEntity.ok(fileTransferService.requeueTransfer(fileId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // 17. GET /api/ops/export - Streams every matching row, active and archived, as NDJSON (format=ndjson) or CSV
+    // (format=csv), filtered by destinationGroup, status (repeatable) and a [from, to) window on dateCreated.
+    // Rows go straight from a database cursor to the response, so memory use does not grow with the export.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransfers(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String destinationGroup,
+            @RequestParam(required = false) Set<ReportFile.TransferStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        TransferExporter.Format exportFormat;
+        try {
+            exportFormat = TransferExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("transfers." + exportFormat.getExtension()).build().toString())
+            .body(out -> fileTransferService.exportTransfers(exportFormat, destinationGroup, status, from, to, out));
+    }
+
+    // 18. GET /api/ops/summary - Files and bytes per status (totals) and per status x destinationGroup (groups)
+    // Answered from in-memory counters, never a table scan; 503 until the first reconciliation has seeded them.
+    @GetMapping("/summary")
+    public ResponseEntity<Map<String, Object>> getSummary() {
+        if (!transferCounters.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        return ResponseEntity.ok(transferCounters.snapshot());
+    }
+
+    // 19. GET /api/ops/storage/stats - Usage, hit rate and evictions of the LRU-bounded local storage tier
+    @GetMapping("/storage/stats")
+    public ResponseEntity<Map<String, Object>> getStorageStats() {
+        return ResponseEntity.ok(localStorage.getStats());
+    }
+
+    // The stored copy, left compressed for a client that accepts gzip; null when the file is REMOTE or its copy
+    // was evicted after the lookup, in which case the remote source is streamed instead
+    private InputStream openLocalCopy(ReportFile file, boolean acceptsGzip) throws IOException {
+        if (file.getCurrentLocation() != ReportFile.StorageLocation.LOCAL) {
+            return null;
+        }
+        try {
+            return transferPipeline.openForRead(Paths.get(file.getLocalPath()), file.getStorageFormat(),
+                !(acceptsGzip && file.getStorageFormat() == ReportFile.StorageFormat.GZIP));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // Body stays a plain array for existing clients; the cursor for the next page travels in a header
+    private ResponseEntity<List<ReportFileSummary>> pageResponse(ReportFilePage page, String etag) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        return response.body(page.getItems());
+    }
 }
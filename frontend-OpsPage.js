@@ -1,8 +1,8 @@
-import React, { useState, useMemo, useEffect, useCallback } from 'react';
+import React, { useState, useMemo, useEffect, useCallback, useRef } from 'react';
 import './OpsPage.css'; 
 import { useNavigate } from 'react-router-dom';
 // Ensure this path points to your live fetch implementation:
-import fetchAPI from '../../utils/api'; 
+import fetchAPI, { fetchPage, subscribeToEvents } from '../../utils/api'; 
 
 // --- Static User Info for the Header ---
 const opsUser = {
@@ -39,6 +39,9 @@ const LogOutIcon = () => (
     <svg xmlns="http://www.w3.org/2000/svg" width="20" height="20" viewBox="0 0 24 24" fill="none" stroke="currentColor" strokeWidth="2" strokeLinecap="round" strokeLinejoin="round"><path d="M9 21H5a2 2 0 0 1-2-2V5a2 2 0 0 1 2-2h4"/><polyline points="16 17 21 12 16 7"/><line x1="21" y1="12" x2="9" y2="12"/></svg>
 );
 
+// Server rows are summaries keyed by fileId/transferStatus; the table and sidebar read id/status
+const toRow = (file) => ({ ...file, id: file.fileId, status: file.transferStatus });
+const QUEUE_STATUSES = ['READY_TO_TRANSFER', 'PROCESSING'];
 
 function OpsPage() {
     const navigate = useNavigate();
@@ -55,23 +58,128 @@ function OpsPage() {
     };
 
     // --- DATA FETCHING ---
+    // /queue and /notifications are keyset-paginated (100 rows per page). The first page is loaded up front;
+    // 'Load more' follows the X-Next-Cursor of the last page loaded until the server stops sending one.
+    const [queueCursor, setQueueCursor] = useState(null);
+    const [notificationsCursor, setNotificationsCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
+
+    // Live updates may already have added some of the page's rows; keep one copy of each
+    const appendPage = (prev, items) => {
+        const rows = items.map(toRow);
+        const ids = new Set(rows.map(row => row.id));
+        return [...prev.filter(row => !ids.has(row.id)), ...rows];
+    };
 
-    const fetchTransferQueue = useCallback(async () => {
-        setIsLoading(true);
-        const fetchedFiles = await fetchAPI('/queue', 'GET'); 
-        setFiles(Array.isArray(fetchedFiles) ? fetchedFiles : []);
-        setIsLoading(false);
+    // Patches both lists with one pushed state change (see LIVE UPDATES below)
+    const applyEvent = useCallback((event) => {
+        const row = toRow(event.file);
+        setNotifications(prev => row.status === 'NEW'
+            ? [...prev.filter(n => n.id !== row.id), row]
+            : prev.filter(n => n.id !== row.id));
+        setFiles(prev => {
+            const others = prev.filter(f => f.id !== row.id);
+            if (QUEUE_STATUSES.includes(row.status)) return [...others, row];
+            // Keep finished transfers visible with their final status until the next full load
+            return prev.some(f => f.id === row.id) ? prev.map(f => (f.id === row.id ? row : f)) : others;
+        });
     }, []);
 
-    const fetchNotifications = useCallback(async () => {
-        const fetchedNotifications = await fetchAPI('/notifications', 'GET');
-        setNotifications(Array.isArray(fetchedNotifications) ? fetchedNotifications : []); 
+    // Events received while a full load is in flight; the server may have read the rows before those changes,
+    // so they are applied again on top of the loaded pages
+    const eventsDuringLoad = useRef(new Set());
+
+    const loadLists = useCallback(async () => {
+        const missed = [];
+        eventsDuringLoad.current.add(missed);
+        setIsLoading(true);
+        try {
+            const [queuePage, notificationsPage] = await Promise.all([
+                fetchPage('/queue'),
+                fetchPage('/notifications'),
+            ]);
+            setFiles(queuePage.items.map(toRow));
+            setQueueCursor(queuePage.nextCursor);
+            setNotifications(notificationsPage.items.map(toRow));
+            setNotificationsCursor(notificationsPage.nextCursor);
+            missed.forEach(applyEvent);
+        } finally {
+            eventsDuringLoad.current.delete(missed);
+            setIsLoading(false);
+        }
+    }, [applyEvent]);
+
+    const loadMoreQueue = async () => {
+        setLoadingMore(true);
+        const page = await fetchPage('/queue', queueCursor);
+        setFiles(prev => appendPage(prev, page.items));
+        setQueueCursor(page.nextCursor);
+        setLoadingMore(false);
+    };
+
+    const loadMoreNotifications = async () => {
+        setLoadingMore(true);
+        const page = await fetchPage('/notifications', notificationsCursor);
+        setNotifications(prev => appendPage(prev, page.items));
+        setNotificationsCursor(page.nextCursor);
+        setLoadingMore(false);
+    };
+
+    // GET /api/ops/summary: server-side counts, so the badge and table title do not depend on loaded pages.
+    // Null until the server has them (503 while its counters are seeded); the loaded lists are the fallback.
+    const [summary, setSummary] = useState(null);
+    const fetchSummary = useCallback(async () => {
+        const fetchedSummary = await fetchAPI('/summary', 'GET');
+        setSummary(fetchedSummary && fetchedSummary.totals ? fetchedSummary : null);
     }, []);
 
     useEffect(() => {
-        fetchTransferQueue();
-        fetchNotifications();
-    }, [fetchTransferQueue, fetchNotifications]);
+        fetchSummary();
+    }, [fetchSummary]);
+
+    // --- LIVE UPDATES (GET /api/ops/events) ---
+    // The server pushes every state change, so lists are patched in place instead of refetched.
+    // The lists are loaded on the server's first "resync", sent once this stream is registered, so no change can
+    // fall between the load and the first event. If the stream is not up within a few seconds, load anyway.
+    useEffect(() => {
+        let loaded = false;
+        const openTimer = setTimeout(() => {
+            if (!loaded) {
+                loaded = true;
+                loadLists();
+            }
+        }, 3000);
+
+        const handleEvent = (event) => {
+            eventsDuringLoad.current.forEach(missed => missed.push(event));
+            applyEvent(event);
+        };
+
+        const handleResync = () => {
+            loaded = true;
+            loadLists();
+            fetchSummary();
+        };
+
+        // Counts change with every event; refresh them at most once per second
+        let summaryTimer = null;
+        const handleEventAndCount = (event) => {
+            handleEvent(event);
+            if (!summaryTimer) {
+                summaryTimer = setTimeout(() => {
+                    summaryTimer = null;
+                    fetchSummary();
+                }, 1000);
+            }
+        };
+
+        const unsubscribe = subscribeToEvents(handleEventAndCount, handleResync);
+        return () => {
+            clearTimeout(openTimer);
+            clearTimeout(summaryTimer);
+            unsubscribe();
+        };
+    }, [applyEvent, loadLists, fetchSummary]);
 
 
     // --- ACTION HANDLERS ---
@@ -93,18 +201,11 @@ function OpsPage() {
         ));
         
         try {
-            const response = await fetchAPI(`/transfer/${fileId}`, 'POST');
-
-            if (response.success) {
-                // Refresh queue to get final status from server
-                fetchTransferQueue();
-            } else {
-                console.error("Transfer failed on server.");
-                fetchTransferQueue(); 
-            }
+            // The PROCESSING and final TRANSFERRED/FAILED states arrive on the event stream
+            await fetchAPI(`/transfer/${fileId}`, 'POST');
         } catch (error) {
             console.error("API call failed during transfer:", error);
-            fetchTransferQueue();
+            loadLists();
         }
     };
     
@@ -114,11 +215,8 @@ function OpsPage() {
             const response = await fetchAPI(`/acknowledge/${notification.id}`, 'POST');
 
             if (response.success) {
-                 // 1. Remove from local notification list immediately
+                 // Remove from local notification list immediately; the ACKNOWLEDGED event adds it to the queue
                 setNotifications(prev => prev.filter(n => n.id !== notification.id));
-
-                // 2. Refetch the main queue list to show the new file added by the server
-                fetchTransferQueue();
             }
         } catch (error) {
             console.error("API call failed during acknowledgment:", error);
@@ -126,13 +224,50 @@ function OpsPage() {
     };
 
 
-    // --- Filtering Logic (Remains the same) ---
+    // --- Filtering Logic (GET /api/ops/search) ---
+    // Matching runs on the server's index; only the first page of matches comes over the wire.
+    // One- and two-character terms have no index key, so they just narrow the rows already loaded.
+    const MIN_SERVER_SEARCH = 3;
+    const [searchResults, setSearchResults] = useState([]);
+
+    useEffect(() => {
+        const term = searchTerm.trim();
+        if (term.length < MIN_SERVER_SEARCH) {
+            setSearchResults([]);
+            return undefined;
+        }
+        let cancelled = false;
+        const timer = setTimeout(async () => {
+            const params = new URLSearchParams({ q: term, status: 'READY_TO_TRANSFER' });
+            params.append('status', 'PROCESSING');
+            const found = await fetchAPI(`/search?${params}`, 'GET');
+            if (!cancelled) {
+                setSearchResults(Array.isArray(found)
+                    ? found.map(file => ({ ...file, id: file.fileId, status: file.transferStatus }))
+                    : []);
+            }
+        }, 250);
+        return () => {
+            cancelled = true;
+            clearTimeout(timer);
+        };
+    }, [searchTerm]);
+
+    // Live updates patch 'files'; apply them to the search hits too so statuses stay current
     const filteredFiles = useMemo(() => {
-        return files.filter(file => 
-            file.fileName.toLowerCase().includes(searchTerm.toLowerCase()) ||
-            file.id.toLowerCase().includes(searchTerm.toLowerCase())
-        );
-    }, [files, searchTerm]);
+        const term = searchTerm.trim().toLowerCase();
+        if (term.length < MIN_SERVER_SEARCH) {
+            return files.filter(file =>
+                file.fileName.toLowerCase().includes(term) || file.id.toLowerCase().includes(term));
+        }
+        const latest = new Map(files.map(file => [file.id, file]));
+        return searchResults.map(file => latest.get(file.id) || file);
+    }, [files, searchResults, searchTerm]);
+
+    const newCount = summary ? summary.totals.NEW.files : notifications.length;
+    const queueCount = summary && !searchTerm.trim()
+        ? summary.totals.READY_TO_TRANSFER.files + summary.totals.PROCESSING.files
+        : filteredFiles.length;
 
 
     return (
@@ -158,8 +293,8 @@ function OpsPage() {
                         title={showNotifications ? "Hide Notifications" : "Show Notifications"}
                     >
                         {showNotifications ? <CloseIcon /> : <NotificationIcon />}
-                        {notifications.length > 0 && (
-                            <span className="notification-badge">{notifications.length}</span>
+                        {newCount > 0 && (
+                            <span className="notification-badge">{newCount}</span>
                         )}
                     </button>
 
@@ -203,7 +338,7 @@ function OpsPage() {
 
                         {/* Transfer Table */}
                         <div className="reports-area transfer-table-card">
-                            <h2 className="table-subtitle">Files Ready for Action ({filteredFiles.length} found)</h2>
+                            <h2 className="table-subtitle">Files Ready for Action ({queueCount} found)</h2>
                             
                             <div className="table-responsive">
                                 <table className="data-table">
@@ -256,6 +391,15 @@ function OpsPage() {
                                     </tbody>
                                 </table>
                             </div>
+                            {queueCursor && !isLoading && searchTerm.trim().length < MIN_SERVER_SEARCH && (
+                                <button
+                                    className="action-button load-more-button"
+                                    onClick={loadMoreQueue}
+                                    disabled={loadingMore}
+                                >
+                                    {loadingMore ? 'Loading...' : 'Load more'}
+                                </button>
+                            )}
                         </div>
                     </div>
                 </div>
@@ -266,7 +410,7 @@ function OpsPage() {
                 <div className="ops-notification-panel">
                     
                     <div className="notification-panel-header">
-                        <h3 className="notification-title">New File Arrivals ({notifications.length})</h3>
+                        <h3 className="notification-title">New File Arrivals ({newCount})</h3>
                         <button className="action-button close-sidebar-button" onClick={toggleNotifications}>
                             <CloseIcon />
                         </button>
@@ -292,6 +436,15 @@ function OpsPage() {
                         ) : (
                             <p className="no-reports">No new files waiting.</p>
                         )}
+                        {notificationsCursor && (
+                            <button
+                                className="action-button load-more-button"
+                                onClick={loadMoreNotifications}
+                                disabled={loadingMore}
+                            >
+                                {loadingMore ? 'Loading...' : 'Load more'}
+                            </button>
+                        )}
                     </div>
                 </div>
             </div>
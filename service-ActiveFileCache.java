@@ -0,0 +1,354 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.dao.ReportFileRepository;
+import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.model.ReportFilePage;
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/*
+ * Write-through cache of the active working set (NEW, READY_TO_TRANSFER, PROCESSING on REMOTE).
+ *
+ * Rows are indexed by fileId and, per status, in (dateCreated, fileId) order so the keyset pages served by
+ * /queue and /notifications come straight from memory. FileTransferService keeps it current through
+ * FileStateListener; rows leaving the active states are evicted. Each status carries a version that is bumped
+ * on every change and feeds the ETag of the lists.
+ *
+ * The cache is loaded in the background after startup; until then reads report a miss and go to the database.
+ * Listener callbacks only carry changes made by this instance. In SHARED claim mode the other nodes acknowledge,
+ * claim and finish rows too, so every shared-refresh-ms the active rows are re-read and the differences applied;
+ * the rows that changed elsewhere are also handed to every other FileStateListener (event stream, search index, ...)
+ * through onRemoteChange.
+ */
+@Component
+public class ActiveFileCache implements FileStateListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveFileCache.class);
+
+    static final Set<ReportFile.TransferStatus> ACTIVE_STATUSES = EnumSet.of(
+        ReportFile.TransferStatus.NEW,
+        ReportFile.TransferStatus.READY_TO_TRANSFER,
+        ReportFile.TransferStatus.PROCESSING);
+
+    private static final int WARM_UP_PAGE_SIZE = 1000;
+
+    private static final Comparator<ReportFileSummary> KEY_ORDER = Comparator
+        .comparing(ReportFileSummary::getDateCreated, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(ReportFileSummary::getFileId);
+
+    @Autowired
+    private ReportFileRepository fileRepository;
+
+    @Autowired
+    private ClusterNode clusterNode;
+
+    // Resolved on first refresh: several listeners depend on this cache
+    @Autowired
+    private ObjectProvider<FileStateListener> stateListeners;
+
+    private final ConcurrentHashMap<String, ReportFileSummary> byId = new ConcurrentHashMap<>();
+    private final Map<ReportFile.TransferStatus, ConcurrentSkipListMap<ReportFileSummary, ReportFileSummary>> byStatus =
+        new EnumMap<>(ReportFile.TransferStatus.class);
+    private final Map<ReportFile.TransferStatus, AtomicLong> versions = new EnumMap<>(ReportFile.TransferStatus.class);
+    // Row count per destinationGroup, indexed by TransferStatus ordinal; read by the queue-depth gauges
+    private final ConcurrentHashMap<String, AtomicLong[]> groupCounts = new ConcurrentHashMap<>();
+
+    // Ids changed while the warm-up or a refresh was reading; their database snapshot is stale and must not
+    // overwrite them
+    private final Set<String> changedDuringWarmUp = ConcurrentHashMap.newKeySet();
+    private volatile boolean warming = false;
+    private volatile boolean ready = false;
+    private volatile LocalDateTime refreshedAt;
+    private volatile int lastRefreshChanges;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ActiveFileCache() {
+        for (ReportFile.TransferStatus status : ACTIVE_STATUSES) {
+            byStatus.put(status, new ConcurrentSkipListMap<>(KEY_ORDER));
+            versions.put(status, new AtomicLong());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpInBackground() {
+        Thread loader = new Thread(this::warmUp, "active-cache-warmup");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    void warmUp() {
+        warming = true;
+        try {
+            for (ReportFileSummary row : loadActiveRows()) {
+                if (!changedDuringWarmUp.contains(row.getFileId())) {
+                    putIfAbsent(row);
+                }
+            }
+            ready = true;
+            log.info("Active file cache loaded with {} rows", byId.size());
+        } catch (RuntimeException e) {
+            log.error("Active file cache warm-up failed; list endpoints keep reading from the database", e);
+        } finally {
+            warming = false;
+            changedDuringWarmUp.clear();
+        }
+    }
+
+    private List<ReportFileSummary> loadActiveRows() {
+        List<ReportFile.TransferStatus> statuses = new ArrayList<>(ACTIVE_STATUSES);
+        List<ReportFileSummary> rows = new ArrayList<>();
+        List<ReportFileSummary> page = fileRepository.findFirstPage(
+            ReportFile.StorageLocation.REMOTE, statuses, PageRequest.of(0, WARM_UP_PAGE_SIZE));
+        while (!page.isEmpty()) {
+            rows.addAll(page);
+            ReportFileSummary last = page.get(page.size() - 1);
+            page = fileRepository.findPageAfter(ReportFile.StorageLocation.REMOTE, statuses,
+                last.getDateCreated(), last.getFileId(), PageRequest.of(0, WARM_UP_PAGE_SIZE));
+        }
+        return rows;
+    }
+
+    @Scheduled(fixedDelayString = "${ops.cache.shared-refresh-ms:5000}")
+    public void scheduledRefresh() {
+        if (!clusterNode.isShared() || !ready) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Active file cache refresh failed; will retry", e);
+        }
+    }
+
+    // Applies the changes other nodes made to the active rows and passes them on; returns how many rows changed
+    int refresh() {
+        warming = true;
+        Map<String, ReportFileSummary> changed = new LinkedHashMap<>();
+        Map<String, ReportFile.TransferStatus> previous = new HashMap<>();
+        try {
+            Map<String, ReportFileSummary> current = new HashMap<>();
+            for (ReportFileSummary row : loadActiveRows()) {
+                current.put(row.getFileId(), row);
+            }
+            List<String> gone = new ArrayList<>();
+            synchronized (this) {
+                for (ReportFileSummary cached : byId.values()) {
+                    if (!current.containsKey(cached.getFileId()) && !changedDuringWarmUp.contains(cached.getFileId())) {
+                        gone.add(cached.getFileId());
+                        previous.put(cached.getFileId(), cached.getTransferStatus());
+                    }
+                }
+                for (ReportFileSummary row : current.values()) {
+                    ReportFileSummary cached = byId.get(row.getFileId());
+                    if (!changedDuringWarmUp.contains(row.getFileId())
+                            && (cached == null || cached.getTransferStatus() != row.getTransferStatus())) {
+                        previous.put(row.getFileId(), cached == null ? null : cached.getTransferStatus());
+                        changed.put(row.getFileId(), row);
+                        replace(row);
+                    }
+                }
+                for (String fileId : gone) {
+                    evict(fileId);
+                }
+            }
+            // Rows that left the active states: publish where they went (archived rows are simply gone)
+            if (!gone.isEmpty()) {
+                for (ReportFileSummary row : fileRepository.findSummariesByIds(gone)) {
+                    changed.put(row.getFileId(), row);
+                }
+            }
+        } finally {
+            warming = false;
+            changedDuringWarmUp.clear();
+        }
+        List<FileStateListener> listeners = stateListeners.orderedStream().collect(Collectors.toList());
+        for (ReportFileSummary row : changed.values()) {
+            for (FileStateListener listener : listeners) {
+                listener.onRemoteChange(row, previous.get(row.getFileId()));
+            }
+        }
+        lastRefreshChanges = changed.size();
+        refreshedAt = LocalDateTime.now();
+        return changed.size();
+    }
+
+    // Writes are serialized so byId and the status indexes never disagree; reads stay lock-free
+    @Override
+    public synchronized void onStateChange(ReportFileSummary file, ReportFile.TransferStatus previousStatus) {
+        if (warming) {
+            changedDuringWarmUp.add(file.getFileId());
+        }
+        replace(file);
+    }
+
+    // Already applied by the refresh that found it
+    @Override
+    public void onRemoteChange(ReportFileSummary file, ReportFile.TransferStatus previousStatus) {
+    }
+
+    private synchronized void replace(ReportFileSummary file) {
+        ReportFileSummary old = ACTIVE_STATUSES.contains(file.getTransferStatus())
+            ? byId.put(file.getFileId(), file)
+            : byId.remove(file.getFileId());
+        if (old != null) {
+            unindex(old);
+        }
+        if (ACTIVE_STATUSES.contains(file.getTransferStatus())) {
+            byStatus.get(file.getTransferStatus()).put(file, file);
+            versions.get(file.getTransferStatus()).incrementAndGet();
+            groupCounter(file).incrementAndGet();
+        }
+    }
+
+    private synchronized void evict(String fileId) {
+        ReportFileSummary old = byId.remove(fileId);
+        if (old != null) {
+            unindex(old);
+        }
+    }
+
+    private void unindex(ReportFileSummary old) {
+        byStatus.get(old.getTransferStatus()).remove(old);
+        versions.get(old.getTransferStatus()).incrementAndGet();
+        groupCounter(old).decrementAndGet();
+    }
+
+    private synchronized void putIfAbsent(ReportFileSummary row) {
+        if (byId.putIfAbsent(row.getFileId(), row) == null) {
+            byStatus.get(row.getTransferStatus()).put(row, row);
+            versions.get(row.getTransferStatus()).incrementAndGet();
+            groupCounter(row).incrementAndGet();
+        }
+    }
+
+    private AtomicLong groupCounter(ReportFileSummary row) {
+        String group = row.getDestinationGroup() == null ? "" : row.getDestinationGroup();
+        AtomicLong[] counts = groupCounts.get(group);
+        if (counts == null) {
+            counts = new AtomicLong[ReportFile.TransferStatus.values().length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = new AtomicLong();
+            }
+            groupCounts.put(group, counts);
+        }
+        return counts[row.getTransferStatus().ordinal()];
+    }
+
+    // Destination groups that have (or had) active rows; "" stands for rows without a group
+    public Set<String> getGroups() {
+        return Collections.unmodifiableSet(groupCounts.keySet());
+    }
+
+    // Active rows of one status in one destinationGroup
+    public long count(ReportFile.TransferStatus status, String group) {
+        AtomicLong[] counts = groupCounts.get(group);
+        return counts == null ? 0L : counts[status.ordinal()].get();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Keyset page over the given statuses, merged in (dateCreated, fileId) order; null when not loaded yet
+    public ReportFilePage page(List<ReportFile.TransferStatus> statuses, PageCursor after, int pageSize) {
+        if (!ready) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+
+        ReportFileSummary from = after == null ? null : new ReportFileSummary(
+            after.getFileId(), null, null, null, after.getDateCreated(), null);
+        List<Iterator<ReportFileSummary>> sources = new ArrayList<>(statuses.size());
+        for (ReportFile.TransferStatus status : statuses) {
+            ConcurrentSkipListMap<ReportFileSummary, ReportFileSummary> index = byStatus.get(status);
+            sources.add((from == null ? index : index.tailMap(from, false)).keySet().iterator());
+        }
+
+        List<ReportFileSummary> items = mergeFirst(sources, pageSize);
+        String nextCursor = items.size() == pageSize ? PageCursor.encode(items.get(items.size() - 1)) : null;
+        return new ReportFilePage(items, nextCursor);
+    }
+
+    // Weak ETag for a list request; changes whenever any of the statuses changes. Null when not loaded yet.
+    public String etag(List<ReportFile.TransferStatus> statuses, String cursor, int pageSize) {
+        if (!ready) {
+            return null;
+        }
+        StringBuilder tag = new StringBuilder("W/\"");
+        for (ReportFile.TransferStatus status : statuses) {
+            tag.append(versions.get(status).get()).append('.');
+        }
+        tag.append(pageSize).append('.').append(cursor == null ? "" : Integer.toHexString(cursor.hashCode()));
+        return tag.append('"').toString();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("size", byId.size());
+        for (ReportFile.TransferStatus status : ACTIVE_STATUSES) {
+            stats.put("size." + status, byStatus.get(status).size());
+        }
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        if (clusterNode.isShared()) {
+            stats.put("refreshedAt", refreshedAt);
+            stats.put("lastRefreshChanges", lastRefreshChanges);
+        }
+        return stats;
+    }
+
+    private static List<ReportFileSummary> mergeFirst(List<Iterator<ReportFileSummary>> sources, int limit) {
+        ReportFileSummary[] heads = new ReportFileSummary[sources.size()];
+        for (int i = 0; i < heads.length; i++) {
+            heads[i] = sources.get(i).hasNext() ? sources.get(i).next() : null;
+        }
+        List<ReportFileSummary> items = new ArrayList<>(Math.min(limit, 256));
+        while (items.size() < limit) {
+            int min = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] != null && (min < 0 || KEY_ORDER.compare(heads[i], heads[min]) < 0)) {
+                    min = i;
+                }
+            }
+            if (min < 0) {
+                break;
+            }
+            items.add(heads[min]);
+            heads[min] = sources.get(min).hasNext() ? sources.get(min).next() : null;
+        }
+        return items;
+    }
+}
@@ -0,0 +1,84 @@
+package com.scb.rwtoolbackend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Bounds how many database-bound requests run at once, per kind of request.
+ *
+ * Tomcat has far more request threads than the JDBC pool has connections, so under a burst the extra threads all
+ * block in the pool for up to its connection timeout and every caller sees the slowdown. With a permit per
+ * in-flight request, sized to the pool, the excess waits at most max-wait-ms and is then turned away with a
+ * Retry-After, while the admitted requests keep their normal latency. Unset permit counts are derived from
+ * spring.datasource.hikari.maximum-pool-size: half the pool for list reads and a quarter for transfer initiations,
+ * leaving the rest to the transfer executor, discovery and the schedulers.
+ */
+@Component
+public class AdmissionControl {
+
+    public enum Kind {
+        TRANSFER, LIST
+    }
+
+    private final Map<Kind, Semaphore> permits = new EnumMap<>(Kind.class);
+    private final Map<Kind, Counter> rejected = new EnumMap<>(Kind.class);
+    private final long maxWaitMillis;
+    private final int retryAfterSeconds;
+
+    public AdmissionControl(MeterRegistry registry,
+                            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                            @Value("${ops.admission.transfer-permits:0}") int transferPermits,
+                            @Value("${ops.admission.list-permits:0}") int listPermits,
+                            @Value("${ops.admission.max-wait-ms:50}") long maxWaitMillis,
+                            @Value("${ops.admission.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.maxWaitMillis = maxWaitMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        for (Kind kind : Kind.values()) {
+            int limit = kind == Kind.TRANSFER
+                ? (transferPermits > 0 ? transferPermits : Math.max(1, poolSize / 4))
+                : (listPermits > 0 ? listPermits : Math.max(1, poolSize / 2));
+            String tag = kind.name().toLowerCase(Locale.ROOT);
+            Semaphore semaphore = new Semaphore(limit);
+            permits.put(kind, semaphore);
+            rejected.put(kind, Counter.builder("ops.admission.rejected")
+                .tag("kind", tag)
+                .description("Requests turned away because every permit of their kind was in use")
+                .register(registry));
+            Gauge.builder("ops.admission.in.flight", semaphore, s -> limit - s.availablePermits())
+                .tag("kind", tag)
+                .description("Admitted requests currently holding a permit")
+                .register(registry);
+        }
+    }
+
+    // Takes a permit, waiting at most max-wait-ms; false means the caller must reject the request
+    public boolean tryEnter(Kind kind) {
+        try {
+            if (permits.get(kind).tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.get(kind).increment();
+        return false;
+    }
+
+    // Returns the permit taken by a successful tryEnter
+    public void exit(Kind kind) {
+        permits.get(kind).release();
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,67 @@
+package com.scb.rwtoolbackend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Global bytes/sec token bucket shared by every copy. Callers reserve the bytes they are about to move and
+ * sleep off any deficit, so a chunk larger than the bucket is still allowed but the long-run rate holds.
+ * A rate of 0 disables limiting.
+ */
+@Component
+public class BandwidthLimiter {
+
+    private final long bytesPerSecond;
+    private final long burstBytes;
+
+    private long available;
+    private long lastRefillNanos = System.nanoTime();
+
+    private final LongAdder throttledNanos = new LongAdder();
+
+    public BandwidthLimiter(@Value("${transfer.bandwidth.bytes-per-second:0}") long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstBytes = bytesPerSecond;
+        this.available = bytesPerSecond;
+    }
+
+    public static BandwidthLimiter unlimited() {
+        return new BandwidthLimiter(0L);
+    }
+
+    // Blocks until 'bytes' fit within the configured rate
+    public void acquire(long bytes) throws InterruptedException {
+        if (bytesPerSecond <= 0 || bytes <= 0) {
+            return;
+        }
+        long waitNanos = reserve(bytes);
+        if (waitNanos > 0) {
+            throttledNanos.add(waitNanos);
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private synchronized long reserve(long bytes) {
+        long now = System.nanoTime();
+        // In double so a long idle gap cannot overflow; only the balance is capped, so credit earned while paying
+        // off a deficit (available < 0) counts in full
+        double refill = (now - lastRefillNanos) * (double) bytesPerSecond / 1e9;
+        if (refill >= 1.0) {
+            available = (long) Math.min(burstBytes, available + refill);
+            lastRefillNanos = now;
+        }
+        available -= bytes;
+        return available >= 0 ? 0L : (long) Math.ceil(-available * 1e9 / bytesPerSecond);
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public long getThrottledMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(throttledNanos.sum());
+    }
+}
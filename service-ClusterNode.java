@@ -0,0 +1,60 @@
+package com.scb.rwtoolbackend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+/*
+ * Identity of this instance among the replicas sharing report_files, and how transfers are assigned to workers.
+ *
+ * LOCAL (default): the node that moves a file to PROCESSING takes the lease and runs the copy itself.
+ * SHARED: moving a file to PROCESSING only queues it durably (no lease owner); every node's TransferLeaseManager
+ * claims batches of unowned rows up to its own spare capacity, so throughput scales with the number of nodes.
+ */
+@Component
+public class ClusterNode {
+
+    public enum ClaimMode {
+        LOCAL, SHARED
+    }
+
+    private final String nodeId;
+    private final ClaimMode claimMode;
+
+    public ClusterNode(@Value("${transfer.cluster.node-id:}") String nodeId,
+                       @Value("${transfer.cluster.claim-mode:LOCAL}") ClaimMode claimMode) {
+        this.nodeId = nodeId.isEmpty() ? defaultNodeId() : nodeId;
+        this.claimMode = claimMode;
+    }
+
+    // Host name plus a per-start suffix, so a restarted node never inherits the leases of its previous run
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public ClaimMode getClaimMode() {
+        return claimMode;
+    }
+
+    public boolean isShared() {
+        return claimMode == ClaimMode.SHARED;
+    }
+
+    // Lease owner for a row this node moves to PROCESSING: itself, or nobody when workers claim from the pool
+    public String ownerForNewTransfer() {
+        return isShared() ? null : nodeId;
+    }
+}
@@ -0,0 +1,63 @@
+package com.scb.rwtoolbackend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/*
+ * Fixed set of direct buffers shared by the transfer pipeline. All buffers are allocated at startup; a transfer
+ * borrows what it needs for its whole run and returns it at the end, so the per-chunk path allocates nothing.
+ * A caller takes all the buffers it needs in one acquire, so two transfers can never each hold half a set and
+ * wait on each other; when not enough are free, acquire waits for a release.
+ */
+@Component
+public class DirectBufferPool {
+
+    private final int bufferSize;
+    private final int capacity;
+
+    // Guarded by 'this'
+    private final ArrayDeque<ByteBuffer> free;
+
+    public DirectBufferPool(@Value("${transfer.pipeline.buffer-size:1048576}") int bufferSize,
+                            @Value("${transfer.pipeline.buffers:16}") int buffers) {
+        this.bufferSize = bufferSize;
+        this.capacity = buffers;
+        this.free = new ArrayDeque<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            free.add(ByteBuffer.allocateDirect(bufferSize));
+        }
+    }
+
+    public synchronized ByteBuffer[] acquire(int count) throws InterruptedException {
+        if (count > capacity) {
+            throw new IllegalArgumentException("Requested " + count + " buffers from a pool of " + capacity);
+        }
+        while (free.size() < count) {
+            wait();
+        }
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            buffers[i] = free.poll();
+            buffers[i].clear();
+        }
+        return buffers;
+    }
+
+    public synchronized void release(ByteBuffer[] buffers) {
+        for (ByteBuffer buffer : buffers) {
+            free.add(buffer);
+        }
+        notifyAll();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public synchronized int getAvailable() {
+        return free.size();
+    }
+}
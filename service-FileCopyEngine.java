@@ -0,0 +1,326 @@
+package com.scb.rwtoolbackend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+/*
+ * Zero-copy file mover: bytes go channel-to-channel with FileChannel.transferTo and never pass through heap arrays.
+ * Progress is made durable (force + callback) after every chunk so an interrupted copy can resume from that offset.
+ * Files above transfer.copy.parallel-threshold are instead copied as concurrent byte ranges, see copyRanges.
+ */
+@Component
+public class FileCopyEngine {
+
+    // Called after each chunk has been forced to disk; the offset is safe to resume from
+    public interface ProgressListener {
+        void onDurableOffset(long offset) throws IOException;
+    }
+
+    // Called from range workers when a range has been forced to disk; may be invoked concurrently
+    public interface RangeListener {
+        void onRangeComplete(int rangeIndex) throws IOException;
+    }
+
+    // Copy checksum plus the content hash used to find identical files already on local storage
+    public static final class Fingerprint {
+        private final String checksum;
+        private final String contentHash;
+
+        Fingerprint(String checksum, String contentHash) {
+            this.checksum = checksum;
+            this.contentHash = contentHash;
+        }
+
+        public String getChecksum() { return checksum; }
+        public String getContentHash() { return contentHash; }
+    }
+
+    private static final long CHECKSUM_WINDOW = 256L * 1024 * 1024;
+    // Largest read into a range's mapped segment; each read is paced by the bandwidth limiter on its own
+    private static final int RANGE_READ_STEP = 4 * 1024 * 1024;
+
+    // The range tasks of one copyRanges call, so an interrupted caller can stop them and wait until none is writing
+    private final class RangeTasks {
+        private final Set<Thread> running = new HashSet<>();
+        private int outstanding;
+        private boolean aborted;
+
+        synchronized void submitted() {
+            outstanding++;
+        }
+
+        // False once the copy is aborted: a range that has not started yet is skipped
+        synchronized boolean begin() {
+            if (aborted) {
+                return false;
+            }
+            running.add(Thread.currentThread());
+            return true;
+        }
+
+        synchronized void end() {
+            running.remove(Thread.currentThread());
+            if (--outstanding == 0) {
+                notifyAll();
+            }
+        }
+
+        synchronized void abort() {
+            aborted = true;
+            running.forEach(Thread::interrupt);
+        }
+
+        // Ignores interrupts while waiting; returns early only if the pool was shut down with ranges still queued
+        synchronized void awaitUninterruptibly() {
+            boolean interrupted = false;
+            while (outstanding > 0 && !rangePool.isShutdown()) {
+                try {
+                    wait(1000L);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final long chunkSize;
+    private final long parallelThreshold;
+    private final long rangeSize;
+    private final ExecutorService rangePool;
+    private final BandwidthLimiter bandwidthLimiter;
+
+    public FileCopyEngine(@Value("${transfer.copy.chunk-size:67108864}") long chunkSize,
+                          @Value("${transfer.copy.parallel-threshold:1073741824}") long parallelThreshold,
+                          @Value("${transfer.copy.range-size:134217728}") long rangeSize,
+                          @Value("${transfer.copy.range-parallelism:4}") int rangeParallelism,
+                          BandwidthLimiter bandwidthLimiter) {
+        if (rangeSize <= 0 || rangeSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("transfer.copy.range-size must be between 1 and " + Integer.MAX_VALUE);
+        }
+        this.chunkSize = chunkSize;
+        this.parallelThreshold = parallelThreshold;
+        this.rangeSize = rangeSize;
+        this.bandwidthLimiter = bandwidthLimiter;
+        AtomicInteger counter = new AtomicInteger();
+        this.rangePool = Executors.newFixedThreadPool(rangeParallelism, r -> {
+            Thread t = new Thread(r, "transfer-range-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public boolean isParallelCandidate(long size) {
+        return size >= parallelThreshold;
+    }
+
+    public long getRangeSize() {
+        return rangeSize;
+    }
+
+    public static int rangeCount(long size, long rangeSize) {
+        return (int) ((size + rangeSize - 1) / rangeSize);
+    }
+
+    // Copies source to target starting at resumeOffset and returns the number of bytes in the finished target
+    public long copy(Path source, Path target, long resumeOffset, ProgressListener listener)
+            throws IOException, InterruptedException {
+        Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long size = in.size();
+
+            // Anything past the last durable offset may be torn, so drop it and continue from there
+            long position = Math.min(Math.min(resumeOffset, out.size()), size);
+            out.truncate(position);
+            out.position(position);
+
+            while (position < size) {
+                long count = Math.min(chunkSize, size - position);
+                bandwidthLimiter.acquire(count);
+                long written = in.transferTo(position, count, out);
+                if (written <= 0) {
+                    throw new IOException("Source stopped producing bytes at offset " + position + ": " + source);
+                }
+                position += written;
+                out.force(false);
+                listener.onDurableOffset(position);
+            }
+            return position;
+        }
+    }
+
+    /*
+     * Splits source into fixed-size ranges and copies the ones not yet marked in completed concurrently.
+     * The target is pre-allocated once; each range maps its own segment of the target and fills it with a
+     * positional read from the source, so ranges never share a channel position.
+     */
+    public long copyRanges(Path source, Path target, long rangeSize, BitSet completed, RangeListener listener)
+            throws IOException, InterruptedException {
+        Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                 StandardOpenOption.WRITE)) {
+            long size = in.size();
+            preallocate(out, size);
+
+            int ranges = rangeCount(size, rangeSize);
+            List<Future<?>> pending = new ArrayList<>(ranges);
+            RangeTasks tasks = new RangeTasks();
+            try {
+                for (int i = completed.nextClearBit(0); i < ranges; i = completed.nextClearBit(i + 1)) {
+                    int index = i;
+                    tasks.submitted();
+                    try {
+                        pending.add(rangePool.submit(() -> {
+                            try {
+                                if (tasks.begin()) {
+                                    long start = index * rangeSize;
+                                    copyRange(in, out, start, Math.min(rangeSize, size - start));
+                                    listener.onRangeComplete(index);
+                                }
+                                return null;
+                            } finally {
+                                tasks.end();
+                            }
+                        }));
+                    } catch (RejectedExecutionException e) {
+                        tasks.end();
+                        throw e;
+                    }
+                }
+                awaitAll(pending);
+            } catch (InterruptedException | RuntimeException e) {
+                // Nothing may still be writing into the target once this returns: the caller records progress
+                // and may retry or delete it. The flag is restored too, since callers that catch Exception
+                // would otherwise lose it.
+                tasks.abort();
+                tasks.awaitUninterruptibly();
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                throw e;
+            }
+            return size;
+        }
+    }
+
+    // Fills the range in reads of at most RANGE_READ_STEP, each reserved with the limiter just before it, so a
+    // range is paced as it is copied rather than admitted whole up front
+    private void copyRange(FileChannel in, FileChannel out, long start, long length)
+            throws IOException, InterruptedException {
+        MappedByteBuffer segment = out.map(FileChannel.MapMode.READ_WRITE, start, length);
+        while (segment.hasRemaining()) {
+            int step = Math.min(RANGE_READ_STEP, segment.remaining());
+            bandwidthLimiter.acquire(step);
+            segment.limit(segment.position() + step);
+            if (in.read(segment, start + segment.position()) < 0) {
+                throw new IOException("Source ended inside range starting at offset " + start);
+            }
+            segment.limit(segment.capacity());
+        }
+        segment.force();
+    }
+
+    private static void preallocate(FileChannel out, long size) throws IOException {
+        if (out.size() > size) {
+            out.truncate(size);
+        } else if (out.size() < size && size > 0) {
+            out.write(ByteBuffer.allocate(1), size - 1);
+        }
+    }
+
+    // Waits for every range even after a failure so no worker is still writing when the caller records state.
+    // An interrupt while waiting is handled by copyRanges, which stops the remaining ranges first.
+    private static void awaitAll(List<Future<?>> pending) throws IOException, InterruptedException {
+        IOException failure = null;
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof IOException
+                        ? (IOException) e.getCause() : new IOException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rangePool.shutdownNow();
+    }
+
+    // CRC32C over the whole file, fed from memory-mapped windows so no heap copy of the data is made
+    public String checksum(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += CHECKSUM_WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(CHECKSUM_WINDOW, size - position));
+                crc.update(window);
+            }
+        }
+        return String.format("crc32c:%08x", crc.getValue());
+    }
+
+    // CRC32C and SHA-256 in the same pass over the mapped windows, so the source is read once for both
+    public Fingerprint fingerprint(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += CHECKSUM_WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(CHECKSUM_WINDOW, size - position));
+                crc.update(window.duplicate());
+                sha256.update(window);
+            }
+        }
+        return new Fingerprint(String.format("crc32c:%08x", crc.getValue()),
+            "sha256:" + HexFormat.of().formatHex(sha256.digest()));
+    }
+}
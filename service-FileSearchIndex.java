@@ -0,0 +1,426 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.dao.ReportFileRepository;
+import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.model.ReportFilePage;
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * In-memory trigram index over fileName and fileId of every row in report_files, for GET /api/ops/search.
+ *
+ * Each row gets a dense docId; rows loaded at startup are numbered in (dateCreated, fileId) order and rows
+ * discovered later are appended, so docId order is registration order. Every lower-cased trigram of the name
+ * and the id maps to a sorted posting list of docIds; their first one to three characters get keys of their own
+ * for prefix matching. A query intersects the postings of its keys (driving from the shortest list) and verifies
+ * each candidate against the real substring/prefix and the filters. Substrings shorter than three characters
+ * have no key and scan the docs. Both walk in docId order from the cursor and stop at the page size, so the cost of a
+ * page depends on how far the walk goes to fill it, not on how many rows match in total.
+ *
+ * Kept in sync through FileStateListener (status changes only replace the summary; name and id never change)
+ * and onRemoved (archival). In SHARED claim mode rows discovered or moved by other nodes arrive through
+ * ActiveFileCache's refresh, up to shared-refresh-ms late; a row another node discovers and finishes within one
+ * refresh interval is only picked up by the next restart. Removed docs leave empty slots and stale postings until
+ * the periodic compaction renumbers the surviving docs densely (keeping their order) and rebuilds the postings.
+ * Cursors carry the compaction generation; one from the generation before is mapped onto the new numbering.
+ */
+@Component
+public class FileSearchIndex implements FileStateListener {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSearchIndex.class);
+
+    private static final int WARM_UP_PAGE_SIZE = 5000;
+    private static final int GRAM = 3;
+    // Marks the keys of a value's first one, two and three characters, so prefix queries of any length start
+    // from the docs that begin with them
+    private static final long LEADING = 1L << 48;
+
+    private static final Comparator<ReportFileSummary> LOAD_ORDER = Comparator
+        .comparing(ReportFileSummary::getDateCreated, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(ReportFileSummary::getFileId);
+
+    public static final class Query {
+        private final String text;
+        private final boolean prefix;
+        private final String destinationGroup;
+        private final Set<ReportFile.TransferStatus> statuses;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        // Null or empty filters match everything; from is inclusive, to exclusive (on dateCreated)
+        public Query(String text, boolean prefix, String destinationGroup, Set<ReportFile.TransferStatus> statuses,
+                     LocalDateTime from, LocalDateTime to) {
+            this.text = text == null ? "" : text.trim();
+            this.prefix = prefix;
+            this.destinationGroup = destinationGroup;
+            this.statuses = statuses == null || statuses.isEmpty() ? null : statuses;
+            this.from = from;
+            this.to = to;
+        }
+
+        boolean matches(ReportFileSummary doc) {
+            return (destinationGroup == null || destinationGroup.equals(doc.getDestinationGroup()))
+                && (statuses == null || statuses.contains(doc.getTransferStatus()))
+                && (from == null || (doc.getDateCreated() != null && !doc.getDateCreated().isBefore(from)))
+                && (to == null || (doc.getDateCreated() != null && doc.getDateCreated().isBefore(to)))
+                && (text.isEmpty() || matchesText(doc.getFileName()) || matchesText(doc.getFileId()));
+        }
+
+        private boolean matchesText(String value) {
+            if (value == null) {
+                return false;
+            }
+            if (prefix) {
+                return value.regionMatches(true, 0, text, 0, text.length());
+            }
+            for (int i = 0, last = value.length() - text.length(); i <= last; i++) {
+                if (value.regionMatches(true, i, text, 0, text.length())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // Growable sorted int array; docIds are only ever appended in increasing order
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return; // Trigram repeated within the same doc
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1));
+            }
+            ids[size++] = id;
+        }
+
+        // Index of the first id greater than 'after'
+        int firstAfter(int after) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ids[mid] <= after) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        // newIds[old] is the doc's id after compaction, -1 if it was removed; the mapping keeps the order
+        void renumber(int[] newIds) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int id = newIds[ids[i]];
+                if (id >= 0) {
+                    ids[kept++] = id;
+                }
+            }
+            size = kept;
+            if (ids.length > Math.max(4, size * 2)) {
+                ids = Arrays.copyOf(ids, Math.max(4, size));
+            }
+        }
+    }
+
+    @Autowired
+    private ReportFileRepository fileRepository;
+
+    @Value("${ops.search.compact-ratio:0.25}")
+    private double compactRatio;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by 'lock'
+    private final List<ReportFileSummary> docs = new ArrayList<>();
+    private final Map<String, Integer> docIds = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private int removed;
+    // Bumped by every compaction; survivors of the last one by their docId before it, to carry older cursors over
+    private int generation;
+    private int[] previousDocIds = new int[0];
+
+    // Changes seen while the warm-up is loading; replayed over the loaded snapshot. Guarded by 'lock'.
+    private List<Runnable> pendingChanges = new ArrayList<>();
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpInBackground() {
+        Thread loader = new Thread(this::warmUp, "search-index-warmup");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    void warmUp() {
+        try {
+            long started = System.currentTimeMillis();
+            List<ReportFileSummary> rows = new ArrayList<>();
+            List<ReportFileSummary> page = fileRepository.findSummariesAfter("", PageRequest.of(0, WARM_UP_PAGE_SIZE));
+            while (!page.isEmpty()) {
+                rows.addAll(page);
+                page = fileRepository.findSummariesAfter(page.get(page.size() - 1).getFileId(),
+                    PageRequest.of(0, WARM_UP_PAGE_SIZE));
+            }
+            rows.sort(LOAD_ORDER);
+
+            lock.writeLock().lock();
+            try {
+                for (ReportFileSummary row : rows) {
+                    add(row);
+                }
+                pendingChanges.forEach(Runnable::run);
+                pendingChanges = null;
+                ready = true;
+                log.info("Search index loaded with {} rows and {} trigrams in {} ms",
+                    docIds.size(), postings.size(), System.currentTimeMillis() - started);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            log.error("Search index warm-up failed; /api/ops/search stays unavailable", e);
+        }
+    }
+
+    @Override
+    public void onStateChange(ReportFileSummary file, ReportFile.TransferStatus previousStatus) {
+        apply(() -> upsert(file));
+    }
+
+    @Override
+    public void onRemoved(Collection<ReportFileSummary> files) {
+        apply(() -> files.forEach(file -> remove(file.getFileId())));
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            } else {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsert(ReportFileSummary file) {
+        Integer docId = docIds.get(file.getFileId());
+        if (docId != null) {
+            docs.set(docId, file);
+        } else {
+            add(file);
+        }
+    }
+
+    private void add(ReportFileSummary file) {
+        if (docIds.containsKey(file.getFileId())) {
+            return;
+        }
+        int docId = docs.size();
+        docs.add(file);
+        docIds.put(file.getFileId(), docId);
+        addGrams(file.getFileName(), docId);
+        addGrams(file.getFileId(), docId);
+    }
+
+    private void addGrams(String value, int docId) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            postings.computeIfAbsent(gramKey(value, i), k -> new Postings()).add(docId);
+        }
+        for (int n = 1; n <= Math.min(GRAM, value.length()); n++) {
+            postings.computeIfAbsent(leadingKey(value, n), k -> new Postings()).add(docId);
+        }
+    }
+
+    private void remove(String fileId) {
+        Integer docId = docIds.remove(fileId);
+        if (docId != null) {
+            docs.set(docId, null);
+            removed++;
+        }
+    }
+
+    // Three UTF-16 units, lower-cased, packed into one key
+    private static long gramKey(String value, int offset) {
+        return ((long) Character.toLowerCase(value.charAt(offset)) << 32)
+            | ((long) Character.toLowerCase(value.charAt(offset + 1)) << 16)
+            | Character.toLowerCase(value.charAt(offset + 2));
+    }
+
+    // First n (1..3) characters of the value, tagged with n so "ab" and "ab\0" cannot collide
+    private static long leadingKey(String value, int n) {
+        long key = LEADING | ((long) n << 49);
+        for (int i = 0; i < n; i++) {
+            key |= (long) Character.toLowerCase(value.charAt(i)) << (32 - 16 * i);
+        }
+        return key;
+    }
+
+    // One page of matches after the cursor (a docId); null while the index is still loading
+    public ReportFilePage search(Query query, String cursor, int pageSize) {
+        if (!ready) {
+            return null;
+        }
+        List<ReportFileSummary> items = new ArrayList<>(pageSize);
+        int cursorGeneration;
+        int lastDocId;
+        lock.readLock().lock();
+        try {
+            int after = cursor == null || cursor.isEmpty() ? -1 : resume(cursor);
+            cursorGeneration = generation;
+            lastDocId = after;
+            boolean keyed = query.prefix ? !query.text.isEmpty() : query.text.length() >= GRAM;
+            if (!keyed) {
+                // Empty text, or a one/two-character substring: no key to drive from, walk the docs
+                for (int docId = after + 1; docId < docs.size() && items.size() < pageSize; docId++) {
+                    ReportFileSummary doc = docs.get(docId);
+                    if (doc != null && query.matches(doc)) {
+                        items.add(doc);
+                        lastDocId = docId;
+                    }
+                }
+            } else {
+                Postings[] lists = postingsOf(query);
+                Postings driver = lists == null ? null : lists[0];
+                for (int i = driver == null ? 0 : driver.firstAfter(after);
+                     driver != null && i < driver.size && items.size() < pageSize; i++) {
+                    int docId = driver.ids[i];
+                    ReportFileSummary doc = docs.get(docId);
+                    if (doc != null && inAll(lists, docId) && query.matches(doc)) {
+                        items.add(doc);
+                        lastDocId = docId;
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        String nextCursor = items.size() == pageSize ? cursorGeneration + ":" + lastDocId : null;
+        return new ReportFilePage(items, nextCursor);
+    }
+
+    // The docId a cursor resumes after, in the current numbering. Guarded by 'lock'.
+    private int resume(String cursor) {
+        int separator = cursor.indexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Malformed search cursor: " + cursor);
+        }
+        int cursorGeneration = Integer.parseInt(cursor.substring(0, separator));
+        int docId = Integer.parseInt(cursor.substring(separator + 1));
+        if (cursorGeneration == generation) {
+            return docId;
+        }
+        if (cursorGeneration == generation - 1) {
+            // Resume after the last survivor at or before the old docId
+            int index = Arrays.binarySearch(previousDocIds, docId);
+            return index >= 0 ? index : -index - 2;
+        }
+        throw new IllegalArgumentException("Search cursor predates the last two compactions: " + cursor);
+    }
+
+    // Postings of the keys of the text (leading key for prefix queries, then its trigrams), shortest first;
+    // null when some key occurs nowhere
+    private Postings[] postingsOf(Query query) {
+        String text = query.text;
+        Map<Long, Postings> lists = new LinkedHashMap<>();
+        if (query.prefix && !text.isEmpty()) {
+            lists.put(leadingKey(text, Math.min(GRAM, text.length())), null);
+        }
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            lists.put(gramKey(text, i), null);
+        }
+        for (Map.Entry<Long, Postings> entry : lists.entrySet()) {
+            Postings list = postings.get(entry.getKey());
+            if (list == null) {
+                return null;
+            }
+            entry.setValue(list);
+        }
+        Postings[] sorted = lists.values().toArray(new Postings[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(p -> p.size));
+        return sorted;
+    }
+
+    private static boolean inAll(Postings[] lists, int docId) {
+        for (int i = 1; i < lists.length; i++) {
+            if (!lists[i].contains(docId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Once removed docs make up compact-ratio of all docs, renumbers the live ones 0..n-1 in their current order and
+    // rewrites docIds and the postings to match, so neither the walk nor the postings pass over removed rows
+    @Scheduled(fixedDelayString = "${ops.search.compact-interval-ms:600000}")
+    public void compact() {
+        if (!ready) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (removed == 0 || removed < docs.size() * compactRatio) {
+                return;
+            }
+            int[] newIds = new int[docs.size()];
+            int[] oldIds = new int[docs.size()];
+            List<ReportFileSummary> live = new ArrayList<>(docs.size() - removed);
+            for (int docId = 0; docId < docs.size(); docId++) {
+                ReportFileSummary doc = docs.get(docId);
+                if (doc == null) {
+                    newIds[docId] = -1;
+                } else {
+                    newIds[docId] = live.size();
+                    oldIds[live.size()] = docId;
+                    live.add(doc);
+                }
+            }
+            docs.clear();
+            docs.addAll(live);
+            docIds.replaceAll((fileId, docId) -> newIds[docId]);
+            for (Postings list : postings.values()) {
+                list.renumber(newIds);
+            }
+            postings.values().removeIf(list -> list.size == 0);
+            previousDocIds = Arrays.copyOf(oldIds, live.size());
+            generation++;
+            log.info("Search index compacted: dropped {} removed rows, {} remain", removed, live.size());
+            removed = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+
+import java.util.Collection;
+
+// Notified by FileTransferService after every persisted status change, on the thread that made the change
+public interface FileStateListener {
+
+    // previousStatus is null for a newly discovered file
+    void onStateChange(ReportFileSummary file, ReportFile.TransferStatus previousStatus);
+
+    // A change another node made, found by ActiveFileCache's shared refresh some time after it happened. Handled like
+    // a local change unless the listener already learns of it from the database itself.
+    default void onRemoteChange(ReportFileSummary file, ReportFile.TransferStatus previousStatus) {
+        onStateChange(file, previousStatus);
+    }
+
+    // Rows deleted from report_files without a status change (moved to history by TransferArchiver), as they were
+    // when removed
+    default void onRemoved(Collection<ReportFileSummary> files) {
+    }
+}
@@ -1,22 +1,121 @@
 package com.scb.rwtoolbackend.service;
 
+import com.scb.rwtoolbackend.dao.ReportFileHistoryRepository;
 import com.scb.rwtoolbackend.dao.ReportFileRepository;
+import com.scb.rwtoolbackend.model.BulkRequest;
+import com.scb.rwtoolbackend.model.BulkResult;
 import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.model.ReportFileHistory;
+import com.scb.rwtoolbackend.model.ReportFileHistoryPage;
+import com.scb.rwtoolbackend.model.ReportFilePage;
+import com.scb.rwtoolbackend.model.ReportFileSummary;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 @Service
 public class FileTransferService {
 
+    private static final List<ReportFile.TransferStatus> NOTIFICATION_STATUSES =
+        Collections.singletonList(ReportFile.TransferStatus.NEW);
+    private static final List<ReportFile.TransferStatus> QUEUE_STATUSES = Arrays.asList(
+        ReportFile.TransferStatus.READY_TO_TRANSFER,
+        ReportFile.TransferStatus.PROCESSING);
+
     @Autowired
     private ReportFileRepository fileRepository;
 
+    @Autowired
+    private ReportFileHistoryRepository historyRepository;
+
+    @Autowired
+    private TransferExecutor transferExecutor;
+
+    @Autowired
+    private TransferScheduler transferScheduler;
+
+    @Autowired
+    private FileCopyEngine copyEngine;
+
+    @Autowired
+    private ActiveFileCache activeFileCache;
+
+    @Autowired
+    private FileSearchIndex searchIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TransferStateMachine stateMachine;
+
+    @Autowired
+    private ClusterNode clusterNode;
+
+    @Autowired
+    private TransferRetryScheduler retryScheduler;
+
+    @Autowired
+    private TransferExporter transferExporter;
+
+    @Autowired
+    private TransferMetrics metrics;
+
+    @Autowired
+    private TransferPipeline transferPipeline;
+
+    @Autowired
+    private LocalStorageTier localStorage;
+
+    // Write-through consumers of status changes (active cache, event stream, ...)
+    @Autowired
+    private List<FileStateListener> stateListeners;
+
+    @Value("${transfer.remote-root:/remote/source}")
+    private String remoteRoot;
+
+    @Value("${transfer.local-root:/local/accessible}")
+    private String localRoot;
+
+    @Value("${ops.page.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${ops.bulk.max-size:1000}")
+    private int maxBulkSize;
+
+    // Evicted files whose local copy is being re-fetched, so repeated downloads queue it once
+    private final Set<String> restoring = ConcurrentHashMap.newKeySet();
+
     /*
      * MOCK INITIALIZATION: Populates initial state for demonstration.
      */
@@ -32,73 +131,767 @@ public class FileTransferService {
         }
     }
     
-    // INTERNAL HELPER: Simulates a background worker discovering a new file.
+    // INTERNAL HELPER: Registers a single file as NEW (used by the mock initialization).
     public ReportFile discoverNewFile(String fileName, String destinationGroup) {
         ReportFile newFile = new ReportFile();
-        newFile.setFileId(UUID.randomUUID().toString());
         newFile.setFileName(fileName);
-        newFile.setRemotePath("/remote/source/" + fileName);
+        newFile.setRemotePath(Paths.get(remoteRoot, fileName).toString());
         newFile.setDestinationGroup(destinationGroup);
-        newFile.setTransferStatus(ReportFile.TransferStatus.NEW); // Status that triggers initial notification
-        newFile.setCurrentLocation(ReportFile.StorageLocation.REMOTE);
-        newFile.setDateCreated(LocalDateTime.now());
+        markDiscovered(newFile);
         
-        return fileRepository.save(newFile);
+        ReportFile saved = fileRepository.save(newFile);
+        notifyStateChange(saved, null);
+        return saved;
+    }
+
+    // DISCOVERY: Registers a batch of files found under the remote root, skipping paths that already have a row
+    // (active or archived). One IN query per table filters the batch and saveAll is flushed as JDBC batch inserts.
+    // remote_path is unique, so a concurrent registration of the same path cannot produce a second row.
+    public List<ReportFile> discoverNewFiles(List<ReportFile> candidates) {
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> paths = candidates.stream().map(ReportFile::getRemotePath).collect(Collectors.toList());
+        Set<String> existing = new HashSet<>(fileRepository.findExistingRemotePaths(paths));
+        existing.addAll(historyRepository.findArchivedRemotePaths(paths));
+
+        List<ReportFile> newFiles = new ArrayList<>(candidates.size());
+        for (ReportFile candidate : candidates) {
+            if (existing.add(candidate.getRemotePath())) {
+                markDiscovered(candidate);
+                newFiles.add(candidate);
+            }
+        }
+        if (newFiles.isEmpty()) {
+            return newFiles;
+        }
+        List<ReportFile> saved;
+        try {
+            saved = fileRepository.saveAll(newFiles);
+        } catch (DataIntegrityViolationException e) {
+            // The poller and the reconciler scan overlapping windows: a path registered by the other one since the
+            // filter above hits the unique remote_path index and rolls back the whole batch. Those paths are already
+            // known, so register the rest one row at a time.
+            saved = saveEachNew(newFiles);
+        }
+        saved.forEach(file -> notifyStateChange(file, null));
+        return saved;
+    }
+
+    private List<ReportFile> saveEachNew(List<ReportFile> files) {
+        Set<String> existing = new HashSet<>(fileRepository.findExistingRemotePaths(
+            files.stream().map(ReportFile::getRemotePath).collect(Collectors.toList())));
+        List<ReportFile> saved = new ArrayList<>(files.size());
+        for (ReportFile file : files) {
+            if (existing.contains(file.getRemotePath())) {
+                continue;
+            }
+            // Fresh instance: the failed batch may already have marked the original as persisted
+            ReportFile copy = new ReportFile();
+            copy.setFileName(file.getFileName());
+            copy.setRemotePath(file.getRemotePath());
+            copy.setDestinationGroup(file.getDestinationGroup());
+            copy.setFileSize(file.getFileSize());
+            markDiscovered(copy);
+            try {
+                saved.add(fileRepository.save(copy));
+            } catch (DataIntegrityViolationException e) {
+                // Registered concurrently: already known
+            }
+        }
+        return saved;
+    }
+
+    private void markDiscovered(ReportFile file) {
+        file.setFileId(UUID.randomUUID().toString());
+        file.setTransferStatus(ReportFile.TransferStatus.NEW); // Status that triggers initial notification
+        file.setCurrentLocation(ReportFile.StorageLocation.REMOTE);
+        file.setDateCreated(LocalDateTime.now());
     }
     
-    // API 1: GET /api/ops/notifications (Returns NEW files)
-    public List<ReportFile> getNewFileNotifications() {
-        return fileRepository.findByCurrentLocationAndTransferStatus(
-            ReportFile.StorageLocation.REMOTE, ReportFile.TransferStatus.NEW);
+    // API 1: GET /api/ops/notifications (Returns NEW files, one keyset page at a time)
+    public ReportFilePage getNewFileNotifications(String cursor, int limit) {
+        return findPage(NOTIFICATION_STATUSES, cursor, limit);
     }
 
     // API 2: POST /api/ops/acknowledge/{fileId} (Ops Clicks 'Get File')
+    // NEW -> READY_TO_TRANSFER as one conditional UPDATE; acknowledging an already acknowledged file is a no-op.
     public ReportFile acknowledgeNotification(String fileId) throws Exception {
+        boolean won = stateMachine.transition(fileId,
+            ReportFile.TransferStatus.NEW, ReportFile.TransferStatus.READY_TO_TRANSFER);
+
         ReportFile file = fileRepository.findById(fileId)
             .orElseThrow(() -> new Exception("File not found: " + fileId));
-
-        if (file.getTransferStatus() == ReportFile.TransferStatus.NEW) {
-            // Acknowledge the notification and put the file into the main queue
-            file.setTransferStatus(ReportFile.TransferStatus.READY_TO_TRANSFER); 
-            return fileRepository.save(file);
+        if (won) {
+            // Acknowledged by this call: the file is now in the main queue
+            notifyStateChange(file, ReportFile.TransferStatus.NEW);
         }
         return file;
     }
     
-    // API 3: GET /api/ops/queue (Returns files ready for action)
-    public List<ReportFile> getTransferQueue() {
-        List<ReportFile.TransferStatus> statuses = Arrays.asList(
-            ReportFile.TransferStatus.READY_TO_TRANSFER, 
-            ReportFile.TransferStatus.PROCESSING);
-            
+    // API 3: GET /api/ops/queue (Returns files ready for action, one keyset page at a time)
+    public ReportFilePage getTransferQueue(String cursor, int limit) {
         // Returns files that Ops has pulled into the queue (READY or PROCESSING)
-        return fileRepository.findByCurrentLocationAndTransferStatusIn(
-            ReportFile.StorageLocation.REMOTE, statuses);
+        return findPage(QUEUE_STATUSES, cursor, limit);
+    }
+
+    // ETag for a list page, or null while the active cache is still loading
+    public String getNotificationsEtag(String cursor, int limit) {
+        return activeFileCache.etag(NOTIFICATION_STATUSES, cursor, clampPageSize(limit));
+    }
+
+    public String getTransferQueueEtag(String cursor, int limit) {
+        return activeFileCache.etag(QUEUE_STATUSES, cursor, clampPageSize(limit));
+    }
+
+    // Served from the active cache once it is loaded; the database keyset query is the fallback
+    private ReportFilePage findPage(List<ReportFile.TransferStatus> statuses, String cursor, int limit) {
+        int pageSize = clampPageSize(limit);
+        PageCursor after = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+
+        ReportFilePage cached = activeFileCache.page(statuses, after, pageSize);
+        if (cached != null) {
+            return cached;
+        }
+
+        Pageable page = PageRequest.of(0, pageSize);
+        List<ReportFileSummary> items = after == null
+            ? fileRepository.findFirstPage(ReportFile.StorageLocation.REMOTE, statuses, page)
+            : fileRepository.findPageAfter(ReportFile.StorageLocation.REMOTE, statuses,
+                after.getDateCreated(), after.getFileId(), page);
+
+        String nextCursor = items.size() == pageSize ? PageCursor.encode(items.get(items.size() - 1)) : null;
+        return new ReportFilePage(items, nextCursor);
+    }
+
+    // API: GET /api/ops/search (Name/id substring or prefix plus filters, from the in-memory n-gram index)
+    // Returns null while the index is still loading.
+    public ReportFilePage searchFiles(FileSearchIndex.Query query, String cursor, int limit) {
+        return searchIndex.search(query, cursor, clampPageSize(limit));
+    }
+
+    // API: GET /api/ops/history (Archived TRANSFERRED rows, newest first, one keyset page at a time)
+    public ReportFileHistoryPage getHistory(String destinationGroup, LocalDateTime from, LocalDateTime to,
+                                            String cursor, int limit) {
+        int pageSize = clampPageSize(limit);
+        PageCursor before = cursor == null || cursor.isEmpty() ? null : PageCursor.decode(cursor);
+        List<ReportFileHistory> items = historyRepository.findPage(destinationGroup, from, to,
+            before == null ? null : before.getDateCreated(), before == null ? null : before.getFileId(), pageSize);
+
+        ReportFileHistory last = items.isEmpty() ? null : items.get(items.size() - 1);
+        String nextCursor = items.size() == pageSize
+            ? PageCursor.encode(last.getDateTransferred(), last.getFileId())
+            : null;
+        return new ReportFileHistoryPage(items, nextCursor);
+    }
+
+    // API: GET /api/ops/export (Every matching row, active and archived, streamed to 'out' as NDJSON or CSV)
+    public long exportTransfers(TransferExporter.Format format, String destinationGroup,
+                                Collection<ReportFile.TransferStatus> statuses, LocalDateTime from, LocalDateTime to,
+                                OutputStream out) throws IOException {
+        return transferExporter.export(format, destinationGroup, statuses, from, to, out);
+    }
+
+    private int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, maxPageSize));
     }
 
     // API 4: POST /api/ops/transfer/{id} (Ops Clicks 'Transfer' button)
+    // Moves the row to PROCESSING and hands the copy to the transfer executor; completion is recorded asynchronously.
+    // The READY_TO_TRANSFER check and the update are one statement, so of two concurrent clicks exactly one wins.
+    // In SHARED claim mode the row is left unowned instead and whichever node has capacity claims it.
     public ReportFile initiateTransfer(String fileId) throws Exception {
+        // 1. Update status to PROCESSING (Immediate UI feedback)
+        boolean won = stateMachine.transition(fileId, ReportFile.TransferStatus.READY_TO_TRANSFER,
+            ReportFile.TransferStatus.PROCESSING, clusterNode.ownerForNewTransfer());
+
+        ReportFile processing = fileRepository.findById(fileId)
+            .orElseThrow(() -> new NoSuchElementException("File not found: " + fileId));
+        if (!won) {
+            throw new IllegalStateException("File is not ready for transfer: " + processing.getTransferStatus());
+        }
+        notifyStateChange(processing, ReportFile.TransferStatus.READY_TO_TRANSFER);
+        if (clusterNode.isShared()) {
+            return processing;
+        }
+
+        // 2. Queue the copy with the fair scheduler; put the file back in the queue if it is saturated
+        try {
+            transferScheduler.submit(ReportFileSummary.of(processing), () -> performTransfer(fileId));
+        } catch (RejectedExecutionException e) {
+            if (stateMachine.transition(fileId,
+                    ReportFile.TransferStatus.PROCESSING, ReportFile.TransferStatus.READY_TO_TRANSFER)) {
+                processing.setTransferStatus(ReportFile.TransferStatus.READY_TO_TRANSFER);
+                notifyStateChange(processing, ReportFile.TransferStatus.PROCESSING);
+            }
+            throw e;
+        }
+        return processing;
+    }
+
+    // GET /api/ops/transfer/{id}: live job state if the executor still tracks it, otherwise derived from the row
+    public TransferExecutor.TransferJob getTransferJob(String fileId) throws Exception {
+        if (transferScheduler.isQueued(fileId)) {
+            return TransferExecutor.TransferJob.of(fileId, TransferExecutor.JobState.QUEUED);
+        }
+        Optional<TransferExecutor.TransferJob> job = transferExecutor.getJob(fileId);
+        if (job.isPresent()) {
+            return job.get();
+        }
+
         ReportFile file = fileRepository.findById(fileId)
-            .orElseThrow(() -> new Exception("File not found"));
+            .orElseThrow(() -> new Exception("File not found: " + fileId));
+        switch (file.getTransferStatus()) {
+            case PROCESSING:
+                return TransferExecutor.TransferJob.of(fileId, TransferExecutor.JobState.RUNNING);
+            case TRANSFERRED:
+                return TransferExecutor.TransferJob.of(fileId, TransferExecutor.JobState.SUCCEEDED);
+            case FAILED:
+            case DEAD_LETTER:
+                return TransferExecutor.TransferJob.of(fileId, TransferExecutor.JobState.FAILED, file.getLastError());
+            default:
+                throw new Exception("No transfer has been started for file: " + fileId);
+        }
+    }
 
-        if (file.getTransferStatus() != ReportFile.TransferStatus.READY_TO_TRANSFER) {
-            throw new Exception("File is not ready for transfer.");
+    // RECOVERY / CLAIM: Queues a PROCESSING row this node holds the lease for (taken over from a dead worker, or
+    // claimed from the shared pool); the progress fields let performTransfer resume. When the scheduler is full the
+    // file goes back to READY_TO_TRANSFER, or in SHARED claim mode back to the pool for another node.
+    public void resumeTransfer(String fileId) {
+        List<ReportFileSummary> rows = fileRepository.findSummariesByIds(Collections.singletonList(fileId));
+        if (rows.isEmpty() || rows.get(0).getTransferStatus() != ReportFile.TransferStatus.PROCESSING) {
+            return;
+        }
+        ReportFileSummary row = rows.get(0);
+        try {
+            transferScheduler.submit(row, () -> performTransfer(fileId));
+        } catch (RejectedExecutionException e) {
+            if (clusterNode.isShared()) {
+                fileRepository.releaseLease(fileId, ReportFile.TransferStatus.PROCESSING, clusterNode.getNodeId(),
+                    LocalDateTime.now());
+            } else if (stateMachine.transition(fileId,
+                    ReportFile.TransferStatus.PROCESSING, ReportFile.TransferStatus.READY_TO_TRANSFER)) {
+                notifyStateChange(new ReportFileSummary(row.getFileId(), row.getFileName(), row.getDestinationGroup(),
+                    ReportFile.TransferStatus.READY_TO_TRANSFER, row.getDateCreated(), row.getFileSize()),
+                    ReportFile.TransferStatus.PROCESSING);
+            }
         }
+    }
 
-        // 1. Update status to PROCESSING (Immediate UI feedback)
-        file.setTransferStatus(ReportFile.TransferStatus.PROCESSING);
-        fileRepository.save(file);
+    // RETRY: FAILED -> PROCESSING once the row's backoff has elapsed (fired by TransferRetryScheduler); the copy
+    // resumes from the failed attempt's durable progress. Returns false if the row was re-queued by hand or another
+    // node retried it first. When the scheduler is full the row goes back to FAILED and is retried after base-delay.
+    public boolean retryTransfer(String fileId) {
+        if (!stateMachine.transition(fileId, ReportFile.TransferStatus.FAILED, ReportFile.TransferStatus.PROCESSING,
+                clusterNode.ownerForNewTransfer())) {
+            return false;
+        }
+        List<ReportFileSummary> rows = fileRepository.findSummariesByIds(Collections.singletonList(fileId));
+        if (rows.isEmpty()) {
+            return false;
+        }
+        ReportFileSummary row = rows.get(0);
+        notifyStateChange(row, ReportFile.TransferStatus.FAILED);
+        if (clusterNode.isShared()) {
+            return true;
+        }
+        try {
+            transferScheduler.submit(row, () -> performTransfer(fileId));
+        } catch (RejectedExecutionException e) {
+            if (stateMachine.transition(fileId,
+                    ReportFile.TransferStatus.PROCESSING, ReportFile.TransferStatus.FAILED)) {
+                notifyStateChange(new ReportFileSummary(row.getFileId(), row.getFileName(), row.getDestinationGroup(),
+                    ReportFile.TransferStatus.FAILED, row.getDateCreated(), row.getFileSize()),
+                    ReportFile.TransferStatus.PROCESSING);
+                retryScheduler.postpone(fileId);
+            }
+        }
+        return true;
+    }
+
+    // API: POST /api/ops/transfer/{id}/requeue (Ops puts a FAILED or dead-lettered file back in the queue)
+    // Clears the attempt count and pending retry; the file then waits in READY_TO_TRANSFER like any other.
+    public ReportFile requeueTransfer(String fileId) throws Exception {
+        ReportFile file = fileRepository.findById(fileId)
+            .orElseThrow(() -> new NoSuchElementException("File not found: " + fileId));
+        ReportFile.TransferStatus from = file.getTransferStatus();
+        if (from != ReportFile.TransferStatus.FAILED && from != ReportFile.TransferStatus.DEAD_LETTER) {
+            throw new IllegalStateException("Only FAILED or DEAD_LETTER files can be re-queued: " + from);
+        }
+        TransferStateMachine.requireLegal(from, ReportFile.TransferStatus.READY_TO_TRANSFER);
+        if (fileRepository.requeue(fileId, from, ReportFile.TransferStatus.READY_TO_TRANSFER,
+                LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("File changed status while being re-queued: " + fileId);
+        }
+        retryScheduler.cancel(fileId);
+
+        ReportFile requeued = fileRepository.findById(fileId)
+            .orElseThrow(() -> new NoSuchElementException("File not found: " + fileId));
+        notifyStateChange(requeued, from);
+        return requeued;
+    }
 
-        // --- Simulated Transfer Logic ---
-        // Simulate file move to Local Storage and success
-        file.setLocalPath("/local/accessible/" + file.getFileName()); 
+    // DOWNLOAD: GET /api/ops/files/{id}/content streams the LOCAL copy (decoded according to storageFormat).
+    // A file whose copy was evicted (or has gone missing) comes back REMOTE: the caller streams remotePath while
+    // the copy is re-fetched in the background. Archived files are served from report_files_history.
+    public ReportFile getDownloadableFile(String fileId) throws Exception {
+        Optional<ReportFile> current = fileRepository.findById(fileId);
+        if (!current.isPresent()) {
+            return getArchivedFile(fileId);
+        }
+        ReportFile file = current.get();
+        if (file.getTransferStatus() != ReportFile.TransferStatus.TRANSFERRED) {
+            throw new Exception("File has not been transferred: " + fileId);
+        }
+        if (file.getCurrentLocation() == ReportFile.StorageLocation.LOCAL && file.getLocalPath() != null
+                && Files.isRegularFile(Paths.get(file.getLocalPath()))) {
+            localStorage.recordHit(file);
+            return file;
+        }
+        localStorage.recordMiss();
+        if (file.getCurrentLocation() == ReportFile.StorageLocation.LOCAL) {
+            fileRepository.evictLocalCopies(Collections.singleton(fileId), ReportFile.TransferStatus.TRANSFERRED,
+                ReportFile.StorageLocation.LOCAL, ReportFile.StorageLocation.REMOTE);
+            file.setCurrentLocation(ReportFile.StorageLocation.REMOTE);
+            file.setLocalPath(null);
+        }
+        requestRestore(file);
+        return file;
+    }
+
+    // An archived row as a TRANSFERRED file: LOCAL while its stored copy exists, otherwise REMOTE. The copy of an
+    // archived row is not re-fetched; restoring works on report_files rows only.
+    private ReportFile getArchivedFile(String fileId) throws Exception {
+        ReportFileHistory row = historyRepository.findByFileId(fileId)
+            .orElseThrow(() -> new Exception("File not found: " + fileId));
+        ReportFile file = new ReportFile();
+        file.setFileId(row.getFileId());
+        file.setFileName(row.getFileName());
+        file.setRemotePath(row.getRemotePath());
+        file.setDestinationGroup(row.getDestinationGroup());
         file.setTransferStatus(ReportFile.TransferStatus.TRANSFERRED);
+        file.setDateCreated(row.getDateCreated());
+        file.setDateTransferred(row.getDateTransferred());
+        file.setFileSize(row.getFileSize());
+        file.setChecksum(row.getChecksum());
+        file.setContentHash(row.getContentHash());
+        if (row.getLocalPath() != null && Files.isRegularFile(Paths.get(row.getLocalPath()))) {
+            file.setCurrentLocation(ReportFile.StorageLocation.LOCAL);
+            file.setLocalPath(row.getLocalPath());
+            file.setStorageFormat(row.getStorageFormat());
+            file.setStoredSize(row.getStoredSize());
+            localStorage.recordHit(file);
+        } else {
+            file.setCurrentLocation(ReportFile.StorageLocation.REMOTE);
+            localStorage.recordMiss();
+        }
+        return file;
+    }
+
+    // Queues the re-fetch of an evicted copy with the fair scheduler; a full queue just leaves it for the next access
+    private void requestRestore(ReportFile file) {
+        String fileId = file.getFileId();
+        if (!restoring.add(fileId)) {
+            return;
+        }
+        try {
+            transferScheduler.submit(ReportFileSummary.of(file), () -> {
+                try {
+                    return restoreLocalCopy(fileId);
+                } finally {
+                    restoring.remove(fileId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            restoring.remove(fileId);
+        }
+    }
+
+    // WORKER: Brings back the local copy of an evicted TRANSFERRED file: linked to an identical copy when one is
+    // local, otherwise copied from remotePath and verified against the recorded checksum. Returns false when the
+    // row no longer needs it. The save is guarded by @Version like the transfer itself.
+    boolean restoreLocalCopy(String fileId) throws Exception {
+        ReportFile file = fileRepository.findById(fileId).orElse(null);
+        if (file == null || file.getTransferStatus() != ReportFile.TransferStatus.TRANSFERRED
+                || file.getCurrentLocation() != ReportFile.StorageLocation.REMOTE) {
+            return false;
+        }
+        Path source = Paths.get(file.getRemotePath());
+        ReportFile.StorageFormat format = transferPipeline.formatFor(file.getDestinationGroup());
+        Path target = localTarget(file, format);
+        requireOwnTarget(file, target);
+
+        ReportFile existingCopy = file.getContentHash() == null ? null : findLocalCopy(file.getContentHash(), format);
+        if (existingCopy != null) {
+            file.setLocalPath(linkOrReference(Paths.get(existingCopy.getLocalPath()), target).toString());
+            file.setStoredSize(existingCopy.getStoredSize());
+        } else {
+            long stored;
+            String checksum;
+            if (format != ReportFile.StorageFormat.RAW) {
+                TransferPipeline.Result result = transferPipeline.write(source, target, format, offset -> { });
+                stored = result.getBytesStored();
+                checksum = transferPipeline.readBackChecksum(target, format);
+            } else {
+                stored = copyEngine.copy(source, target, 0L, offset -> { });
+                checksum = copyEngine.checksum(target);
+            }
+            if (file.getChecksum() != null && !checksum.equals(file.getChecksum())) {
+                Files.deleteIfExists(target);
+                throw new IOException("Checksum mismatch re-fetching " + source + "; the remote file has changed");
+            }
+            file.setLocalPath(target.toString());
+            file.setStoredSize(stored);
+        }
+        file.setStorageFormat(format);
         file.setCurrentLocation(ReportFile.StorageLocation.LOCAL);
-        
+        localStorage.recordStored(fileRepository.save(file));
+        return true;
+    }
+
+    // WORKER: Runs on a transfer-worker thread, copies remotePath to localPath and records the final status.
+    // Every save below is guarded by @Version, so a row changed by anyone else in the meantime fails the write.
+    void performTransfer(String fileId) throws Exception {
+        ReportFile file = fileRepository.findById(fileId)
+            .orElseThrow(() -> new Exception("File not found: " + fileId));
+        if (file.getTransferStatus() != ReportFile.TransferStatus.PROCESSING) {
+            throw new Exception("File is no longer PROCESSING: " + fileId);
+        }
+
+        Path source = Paths.get(file.getRemotePath());
+        // Groups configured for compression are stored as <fileName>.gz through the streaming pipeline
+        ReportFile.StorageFormat format = transferPipeline.formatFor(file.getDestinationGroup());
+        Path target = localTarget(file, format);
+        long started = System.nanoTime();
+        long copied;
+        ReportFile existingCopy = null;
+        try {
+            requireOwnTarget(file, target);
+            file.setFileSize(Files.size(source));
+            file.setLocalPath(target.toString());
+            file.setStorageFormat(format);
+
+            // Hash before copying only when a LOCAL file of the same size exists, i.e. when a dedup hit is possible
+            FileCopyEngine.Fingerprint fingerprint = null;
+            if (fileRepository.existsByFileSizeAndCurrentLocation(file.getFileSize(),
+                    ReportFile.StorageLocation.LOCAL)) {
+                fingerprint = copyEngine.fingerprint(source);
+                existingCopy = findLocalCopy(fingerprint.getContentHash(), format);
+            }
+
+            if (existingCopy != null) {
+                // Identical content is already local: link (or point at) that blob instead of moving the bytes
+                file.setLocalPath(linkOrReference(Paths.get(existingCopy.getLocalPath()), target).toString());
+                file.setStoredSize(existingCopy.getStoredSize());
+                file.setRangeSize(null);
+                file.setCompletedRanges(null);
+                copied = file.getFileSize();
+            } else if (format != ReportFile.StorageFormat.RAW) {
+                // A compressed stream cannot be resumed mid-way, so these copies always start from the beginning
+                file.setBytesTransferred(0L);
+                file.setRangeSize(null);
+                file.setCompletedRanges(null);
+                file = fileRepository.save(file);
+
+                TransferPipeline.Result result = transferPipeline.write(source, target, format, progressOf(file));
+                copied = result.getBytesRead();
+                fingerprint = result.getFingerprint();
+
+                // Verify by decoding what was stored, so a bad compressed file is never marked TRANSFERRED
+                if (copied != file.getFileSize()
+                        || !fingerprint.getChecksum().equals(transferPipeline.readBackChecksum(target, format))) {
+                    Files.deleteIfExists(target);
+                    file.setBytesTransferred(0L);
+                    throw new IOException("Checksum mismatch after compressing " + source + " to " + target);
+                }
+                file.setStoredSize(result.getBytesStored());
+            } else {
+                // Large files (or ones already started in range mode) are split; everything else is a serial copy
+                boolean inRanges = file.getRangeSize() != null || copyEngine.isParallelCandidate(file.getFileSize());
+                if (inRanges && file.getRangeSize() == null) {
+                    file.setRangeSize(copyEngine.getRangeSize());
+                    file.setCompletedRanges(null);
+                }
+                file = fileRepository.save(file);
+
+                copied = inRanges ? copyInRanges(file, source, target) : copySerially(file, source, target);
+
+                // Verify the copy before declaring success; a corrupt target is discarded so the retry starts clean
+                if (fingerprint == null) {
+                    fingerprint = copyEngine.fingerprint(source);
+                }
+                if (copied != file.getFileSize() || !fingerprint.getChecksum().equals(copyEngine.checksum(target))) {
+                    Files.deleteIfExists(target);
+                    file.setBytesTransferred(0L);
+                    file.setRangeSize(null);
+                    file.setCompletedRanges(null);
+                    throw new IOException("Checksum mismatch after copying " + source + " to " + target);
+                }
+                file.setStoredSize(copied);
+            }
+
+            file.setBytesTransferred(copied);
+            file.setChecksum(fingerprint.getChecksum());
+            file.setContentHash(fingerprint.getContentHash());
+            TransferStateMachine.requireLegal(file.getTransferStatus(), ReportFile.TransferStatus.TRANSFERRED);
+            file.setTransferStatus(ReportFile.TransferStatus.TRANSFERRED);
+            file.setCurrentLocation(ReportFile.StorageLocation.LOCAL);
+            file.setDateTransferred(LocalDateTime.now());
+        } catch (Exception e) {
+            // Progress fields hold the last durable state, so a retry resumes where this attempt stopped.
+            // The row records the cause and either when it is retried or, out of attempts, goes to DEAD_LETTER.
+            // A conditional UPDATE rather than a versioned save, which would fail (and hide 'e') whenever the
+            // attempt itself failed on a version conflict or the lease was taken over.
+            int attempts = (file.getAttemptCount() == null ? 0 : file.getAttemptCount()) + 1;
+            LocalDateTime retryAt = retryScheduler.nextAttemptAt(attempts, file.getDestinationGroup());
+            file.setAttemptCount(attempts);
+            file.setLastError(TransferRetryScheduler.describe(e));
+            file.setNextRetryAt(retryAt);
+            file.setTransferStatus(retryAt == null
+                ? ReportFile.TransferStatus.DEAD_LETTER : ReportFile.TransferStatus.FAILED);
+            metrics.recordFailure(file.getDestinationGroup());
+            try {
+                if (fileRepository.recordFailure(fileId, clusterNode.getNodeId(), ReportFile.TransferStatus.PROCESSING,
+                        file.getTransferStatus(), attempts, file.getLastError(), retryAt, file.getBytesTransferred(),
+                        file.getRangeSize(), file.getCompletedRanges()) == 1) {
+                    notifyStateChange(file, ReportFile.TransferStatus.PROCESSING);
+                    if (retryAt != null) {
+                        retryScheduler.schedule(fileId, retryAt);
+                    }
+                }
+                // 0 rows: another node holds the row now and records its own outcome
+            } catch (RuntimeException recordError) {
+                e.addSuppressed(recordError);
+            }
+            throw e;
+        }
+
         // Final database update marking completion
-        return fileRepository.save(file);
+        file.setNextRetryAt(null);
+        file = fileRepository.save(file);
+        localStorage.recordStored(file);
+        notifyStateChange(file, ReportFile.TransferStatus.PROCESSING);
+        retryScheduler.recordSuccess(file.getDestinationGroup());
+        if (existingCopy != null) {
+            metrics.recordDedupHit(copied);
+        } else {
+            metrics.recordTransfer(copied, System.nanoTime() - started);
+        }
+    }
+
+    // The row's own copy: <local-root>/<destinationGroup>/<fileId>-<storedName>. The same report name is delivered
+    // to many groups (and can repeat within one), so the fileId keeps every row's target distinct.
+    private Path localTarget(ReportFile file, ReportFile.StorageFormat format) {
+        // Group names become one directory level: separators and dot-only names cannot escape the local root
+        String group = file.getDestinationGroup() == null
+            ? "_" : file.getDestinationGroup().replaceAll("[^A-Za-z0-9._-]", "_");
+        String name = Paths.get(file.getFileName()).getFileName().toString();
+        return Paths.get(localRoot, group.startsWith(".") ? "_" + group : group,
+            file.getFileId() + "-" + TransferPipeline.storedName(name, format));
+    }
+
+    // Never write over a path another row stores its copy at or references
+    private void requireOwnTarget(ReportFile file, Path target) {
+        if (fileRepository.existsByLocalPathAndFileIdNot(target.toString(), file.getFileId())) {
+            throw new IllegalStateException("Local target " + target + " is already used by another file");
+        }
+    }
+
+    // First LOCAL row with this content hash and storage format whose blob is still on disk at its stored size
+    private ReportFile findLocalCopy(String contentHash, ReportFile.StorageFormat format) throws IOException {
+        for (ReportFile copy : fileRepository.findByContentHashAndCurrentLocationAndStorageFormat(contentHash,
+                ReportFile.StorageLocation.LOCAL, format)) {
+            if (copy.getLocalPath() == null || copy.getStoredSize() == null) {
+                continue;
+            }
+            Path candidate = Paths.get(copy.getLocalPath());
+            if (Files.isRegularFile(candidate) && Files.size(candidate) == copy.getStoredSize()) {
+                return copy;
+            }
+        }
+        return null;
+    }
+
+    // Hard link at the row's own target when the filesystem allows it; otherwise the row references the blob.
+    // An existing file at the target is never removed: createLink fails on it and the row references the blob.
+    private Path linkOrReference(Path existing, Path target) {
+        if (existing.equals(target)) {
+            return target;
+        }
+        try {
+            Path parent = target.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.createLink(target, existing);
+            return target;
+        } catch (IOException | UnsupportedOperationException e) {
+            return existing;
+        }
+    }
+
+    // Resumes from the last durable offset recorded by a previous, interrupted attempt
+    private long copySerially(ReportFile file, Path source, Path target) throws IOException, InterruptedException {
+        long resumeFrom = file.getBytesTransferred() == null ? 0L : file.getBytesTransferred();
+        return copyEngine.copy(source, target, resumeFrom, progressOf(file));
+    }
+
+    private FileCopyEngine.ProgressListener progressOf(ReportFile file) {
+        return offset -> {
+            fileRepository.updateBytesTransferred(file.getFileId(), offset);
+            file.setBytesTransferred(offset);
+        };
+    }
+
+    // Copies only the ranges not yet recorded as complete; progress is persisted as each range lands
+    private long copyInRanges(ReportFile file, Path source, Path target) throws IOException, InterruptedException {
+        long rangeSize = file.getRangeSize();
+        long size = file.getFileSize();
+        BitSet completed = file.getCompletedRanges() == null
+            ? new BitSet() : BitSet.valueOf(Base64.getDecoder().decode(file.getCompletedRanges()));
+
+        return copyEngine.copyRanges(source, target, rangeSize, completed, index -> {
+            synchronized (completed) {
+                completed.set(index);
+                String encoded = Base64.getEncoder().encodeToString(completed.toByteArray());
+                long done = completed.cardinality() * rangeSize;
+                // The last range may be short, so count it at its real length once it is done
+                int lastRange = FileCopyEngine.rangeCount(size, rangeSize) - 1;
+                if (completed.get(lastRange) && size % rangeSize != 0) {
+                    done -= rangeSize - size % rangeSize;
+                }
+                fileRepository.updateRangeProgress(file.getFileId(), encoded, done);
+                file.setCompletedRanges(encoded);
+                file.setBytesTransferred(done);
+            }
+        });
     }
     
+    // BULK: POST /api/ops/acknowledge (Ops acknowledges many notifications at once)
+    // One locking SELECT, one set-based UPDATE guarded by transfer_status = 'NEW' and one read-back, however many ids.
+    public BulkResult acknowledgeNotifications(BulkRequest request) {
+        List<String> ids = resolveBulkIds(request, ReportFile.TransferStatus.NEW);
+        Set<String> moved = new HashSet<>();
+        Map<String, ReportFileSummary> rows = transitionInBulk(ids,
+            ReportFile.TransferStatus.NEW, ReportFile.TransferStatus.READY_TO_TRANSFER, null, moved);
+
+        BulkResult result = new BulkResult();
+        for (String id : ids) {
+            ReportFileSummary row = rows.get(id);
+            if (row == null) {
+                result.add(id, BulkResult.Outcome.NOT_FOUND, null);
+            } else if (moved.contains(id)) {
+                notifyStateChange(row, ReportFile.TransferStatus.NEW);
+                result.add(id, BulkResult.Outcome.ACKNOWLEDGED, row.getTransferStatus());
+            } else {
+                result.add(id, BulkResult.Outcome.SKIPPED, row.getTransferStatus());
+            }
+        }
+        return result;
+    }
+
+    // BULK: POST /api/ops/transfer (Ops transfers many queued files at once)
+    // Moves every READY_TO_TRANSFER id to PROCESSING in one statement, then enqueues the copies (or, in SHARED
+    // claim mode, leaves them unowned for the claiming workers).
+    public BulkResult initiateTransfers(BulkRequest request) {
+        List<String> ids = resolveBulkIds(request, ReportFile.TransferStatus.READY_TO_TRANSFER);
+        Set<String> moved = new HashSet<>();
+        Map<String, ReportFileSummary> rows = transitionInBulk(ids, ReportFile.TransferStatus.READY_TO_TRANSFER,
+            ReportFile.TransferStatus.PROCESSING, clusterNode.ownerForNewTransfer(), moved);
+
+        // Listeners see PROCESSING before any worker can report a final state.
+        // Files the executor cannot take go back to the queue together.
+        Set<String> rejected = new HashSet<>();
+        for (String id : ids) {
+            if (moved.contains(id)) {
+                notifyStateChange(rows.get(id), ReportFile.TransferStatus.READY_TO_TRANSFER);
+                if (clusterNode.isShared()) {
+                    continue;
+                }
+                try {
+                    transferScheduler.submit(rows.get(id), () -> performTransfer(id));
+                } catch (RejectedExecutionException e) {
+                    rejected.add(id);
+                }
+            }
+        }
+        if (!rejected.isEmpty()) {
+            transactionTemplate.execute(tx -> fileRepository.transitionAll(rejected,
+                ReportFile.TransferStatus.PROCESSING, ReportFile.TransferStatus.READY_TO_TRANSFER, null,
+                LocalDateTime.now()));
+            for (String id : rejected) {
+                ReportFileSummary row = rows.get(id);
+                notifyStateChange(new ReportFileSummary(row.getFileId(), row.getFileName(), row.getDestinationGroup(),
+                    ReportFile.TransferStatus.READY_TO_TRANSFER, row.getDateCreated(), row.getFileSize()),
+                    ReportFile.TransferStatus.PROCESSING);
+            }
+        }
+
+        BulkResult result = new BulkResult();
+        for (String id : ids) {
+            ReportFileSummary row = rows.get(id);
+            if (row == null) {
+                result.add(id, BulkResult.Outcome.NOT_FOUND, null);
+            } else if (rejected.contains(id)) {
+                result.add(id, BulkResult.Outcome.REJECTED, ReportFile.TransferStatus.READY_TO_TRANSFER);
+            } else if (moved.contains(id)) {
+                result.add(id, BulkResult.Outcome.QUEUED, row.getTransferStatus());
+            } else {
+                result.add(id, BulkResult.Outcome.SKIPPED, row.getTransferStatus());
+            }
+        }
+        return result;
+    }
+
+    // Explicit ids win over the destinationGroup filter; either way the batch is capped at ops.bulk.max-size
+    private List<String> resolveBulkIds(BulkRequest request, ReportFile.TransferStatus eligibleStatus) {
+        if (request.getFileIds() != null && !request.getFileIds().isEmpty()) {
+            List<String> ids = new ArrayList<>(new LinkedHashSet<>(request.getFileIds()));
+            if (ids.size() > maxBulkSize) {
+                throw new IllegalArgumentException("At most " + maxBulkSize + " files per bulk request");
+            }
+            return ids;
+        }
+        if (request.getDestinationGroup() != null) {
+            return fileRepository.findIdsByGroupAndStatus(request.getDestinationGroup(), eligibleStatus,
+                PageRequest.of(0, maxBulkSize));
+        }
+        throw new IllegalArgumentException("Either fileIds or destinationGroup is required");
+    }
+
+    // Locks the ids still in 'from', moves them to 'to' and returns every row's post-update summary by id;
+    // 'moved' receives the ids this call transitioned, so concurrent bulk requests never both claim a file
+    private Map<String, ReportFileSummary> transitionInBulk(List<String> ids, ReportFile.TransferStatus from,
+                                                            ReportFile.TransferStatus to, String leaseOwner,
+                                                            Set<String> moved) {
+        TransferStateMachine.requireLegal(from, to);
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return transactionTemplate.execute(tx -> {
+            List<String> locked = fileRepository.lockIdsInStatus(ids, from.name());
+            if (!locked.isEmpty()) {
+                fileRepository.transitionAll(locked, from, to, leaseOwner, LocalDateTime.now());
+                moved.addAll(locked);
+            }
+            Map<String, ReportFileSummary> rows = new HashMap<>();
+            for (ReportFileSummary row : fileRepository.findSummariesByIds(ids)) {
+                rows.put(row.getFileId(), row);
+            }
+            return rows;
+        });
+    }
+
+    private void notifyStateChange(ReportFile file, ReportFile.TransferStatus previousStatus) {
+        notifyStateChange(ReportFileSummary.of(file), previousStatus);
+    }
+
+    private void notifyStateChange(ReportFileSummary summary, ReportFile.TransferStatus previousStatus) {
+        for (FileStateListener listener : stateListeners) {
+            listener.onStateChange(summary, previousStatus);
+        }
+    }
+
     // Helper for creating mock files (needed for initialization)
     private ReportFile createMockFile(String fileName, String destinationGroup, 
                                       ReportFile.TransferStatus status, 
@@ -107,7 +900,7 @@ public class FileTransferService {
         ReportFile file = new ReportFile();
         file.setFileId(UUID.randomUUID().toString());
         file.setFileName(fileName);
-        file.setRemotePath("/remote/source/" + fileName);
+        file.setRemotePath(Paths.get(remoteRoot, fileName).toString());
         file.setDestinationGroup(destinationGroup);
         file.setTransferStatus(status);
         file.setCurrentLocation(location);
@@ -0,0 +1,171 @@
+package com.scb.rwtoolbackend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+ * Hashed timing wheel for many keyed, coarse-grained delays (Varghese & Lauck scheme 6, as in Netty's
+ * HashedWheelTimer).
+ *
+ * The wheel has wheel-size buckets of tick-ms each; a timeout lands in bucket (deadline tick % wheel-size) with the
+ * number of full turns it still has to wait. One thread advances one bucket per tick, so scheduling and cancelling
+ * are O(1) and the cost of a tick depends on that bucket only, not on how many timeouts are waiting. Deadlines are
+ * rounded up to the next tick. Scheduling a key that is already waiting replaces its deadline.
+ */
+public class HashedTimingWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private static final class Timeout {
+        final String key;
+        final long deadlineTick;
+        long remainingRounds;
+        volatile boolean cancelled;
+
+        Timeout(String key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final String name;
+    private final long tickNanos;
+    private final int mask;
+    private final List<LinkedList<Timeout>> buckets;
+    private final Consumer<String> onExpiry;
+
+    // Handed from callers to the wheel thread, which alone touches the buckets
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Map<String, Timeout> waiting = new ConcurrentHashMap<>();
+
+    private final long startNanos = System.nanoTime();
+    private volatile Thread worker;
+    private long tick;
+
+    public HashedTimingWheel(String name, long tickMillis, int wheelSize, Consumer<String> onExpiry) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMillis and wheelSize must be positive");
+        }
+        this.name = name;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        this.mask = Math.max(1, size) - 1;
+        this.buckets = new ArrayList<>(mask + 1);
+        for (int i = 0; i <= mask; i++) {
+            buckets.add(new LinkedList<>());
+        }
+        this.onExpiry = onExpiry;
+    }
+
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    // Fires onExpiry(key) no earlier than delayMillis from now, replacing any deadline the key already has
+    public void schedule(String key, long delayMillis) {
+        long elapsed = System.nanoTime() - startNanos;
+        long deadlineTick = (elapsed + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)) + tickNanos - 1)
+            / tickNanos;
+        Timeout timeout = new Timeout(key, deadlineTick);
+        Timeout previous = waiting.put(key, timeout);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        added.add(timeout);
+    }
+
+    public boolean cancel(String key) {
+        Timeout timeout = waiting.remove(key);
+        if (timeout == null) {
+            return false;
+        }
+        timeout.cancelled = true;
+        return true;
+    }
+
+    public boolean isScheduled(String key) {
+        return waiting.containsKey(key);
+    }
+
+    public int size() {
+        return waiting.size();
+    }
+
+    private void run() {
+        List<String> expired = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            long sleepNanos = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            tick++;
+            transferAdded();
+            expire(buckets.get((int) (tick & mask)), expired);
+            for (String key : expired) {
+                try {
+                    onExpiry.accept(key);
+                } catch (RuntimeException e) {
+                    log.warn("Timer {} callback failed for {}", name, key, e);
+                }
+            }
+            expired.clear();
+        }
+    }
+
+    // Places newly scheduled timeouts; one already due (deadline at or before this tick) goes in this tick's bucket
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long dueTick = Math.max(timeout.deadlineTick, tick);
+            timeout.remainingRounds = (dueTick - tick) / (mask + 1);
+            buckets.get((int) (dueTick & mask)).add(timeout);
+        }
+    }
+
+    private void expire(LinkedList<Timeout> bucket, List<String> expired) {
+        for (Iterator<Timeout> it = bucket.iterator(); it.hasNext(); ) {
+            Timeout timeout = it.next();
+            if (timeout.cancelled) {
+                it.remove();
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                it.remove();
+                // Only the key's current timeout fires; a replaced one was marked cancelled above
+                if (waiting.remove(timeout.key, timeout)) {
+                    expired.add(timeout.key);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.model.ReportFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Startup reconciliation, run on a background thread so the application starts serving immediately.
+ *
+ *   1. seed the mock inventory (initializeRemoteFiles)
+ *   2. recover PROCESSING rows whose lease expired (TransferLeaseManager.recoverStale)
+ *   3. walk the remote root in sorted order and register unknown files in batches of batch-size through
+ *      FileTransferService.discoverNewFiles (one IN query + one batch insert per batch)
+ *
+ * The walk lists one directory at a time, so memory stays bounded by the largest directory and the batch.
+ * The watermark is the last path reconciled. Files modified within settle-ms are left to RemoteDiscoveryService,
+ * which covers everything changed after startup. Readiness is held at REFUSING_TRAFFIC until the walk has
+ * reached the end of the tree. A failed attempt is retried after retry-base-delay-ms, doubling up to
+ * retry-max-delay-ms; the retry skips what the earlier attempts already reconciled, up to the watermark.
+ */
+@Service
+public class InventoryReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryReconciler.class);
+
+    public enum Phase {
+        PENDING, SEEDING, RECOVERING, SCANNING, CAUGHT_UP, FAILED
+    }
+
+    @Autowired
+    private FileTransferService fileTransferService;
+
+    @Autowired
+    private TransferLeaseManager leaseManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${transfer.remote-root:/remote/source}")
+    private String remoteRoot;
+
+    @Value("${transfer.discovery.default-group:Unassigned}")
+    private String defaultGroup;
+
+    @Value("${transfer.reconcile.batch-size:500}")
+    private int batchSize;
+
+    @Value("${transfer.discovery.settle-ms:2000}")
+    private long settleMillis;
+
+    @Value("${transfer.reconcile.retry-base-delay-ms:5000}")
+    private long retryBaseDelayMillis;
+
+    @Value("${transfer.reconcile.retry-max-delay-ms:300000}")
+    private long retryMaxDelayMillis;
+
+    private volatile Phase phase = Phase.PENDING;
+    private volatile String watermark;
+    private volatile long scanned;
+    private volatile long registered;
+    private volatile long recovered;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile int attempts;
+    private volatile String lastError;
+
+    private Path root;
+    private long settledBefore;
+    // Watermark of the previous attempt, relative to root; entries up to it are skipped
+    private Path resumeAfter;
+
+    public void startInBackground() {
+        Thread reconciler = new Thread(this::reconcile, "inventory-reconciler");
+        reconciler.setDaemon(true);
+        reconciler.start();
+    }
+
+    // Boot reports ACCEPTING_TRAFFIC as soon as the context is up; hold it back until the inventory caught up
+    @EventListener
+    public void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && !isCaughtUp()) {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+
+    void reconcile() {
+        startedAt = System.currentTimeMillis();
+        settledBefore = startedAt - settleMillis;
+        while (!attempt()) {
+            long delay = Math.min(retryMaxDelayMillis, retryBaseDelayMillis << Math.min(attempts - 1, 30));
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // One pass over all three steps; false if it failed and should be retried
+    private boolean attempt() {
+        attempts++;
+        try {
+            phase = Phase.SEEDING;
+            fileTransferService.initializeRemoteFiles();
+
+            phase = Phase.RECOVERING;
+            recovered += leaseManager.recoverStale();
+
+            phase = Phase.SCANNING;
+            root = Paths.get(remoteRoot);
+            resumeAfter = watermark == null ? null : root.relativize(Paths.get(watermark));
+            if (Files.isDirectory(root)) {
+                List<ReportFile> batch = new ArrayList<>(batchSize);
+                walk(root, batch);
+                flush(batch);
+            } else {
+                log.warn("Remote root {} is not a directory; nothing to reconcile", root);
+            }
+
+            finishedAt = System.currentTimeMillis();
+            phase = Phase.CAUGHT_UP;
+            log.info("Inventory reconciled in {} ms: {} files scanned, {} registered, {} transfers recovered",
+                finishedAt - startedAt, scanned, registered, recovered);
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            phase = Phase.FAILED;
+            lastError = e.toString();
+            log.error("Inventory reconciliation attempt {} stopped at {}; will retry", attempts, watermark, e);
+            return false;
+        }
+    }
+
+    // Depth-first in name order, so the watermark only ever moves forward through the tree
+    private void walk(Path dir, List<ReportFile> batch) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            stream.forEach(entries::add);
+        }
+        Collections.sort(entries);
+        for (Path entry : entries) {
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(entry, BasicFileAttributes.class);
+            } catch (IOException e) {
+                continue; // Removed while we were walking
+            }
+            Path relative = root.relativize(entry);
+            if (resumeAfter != null && compareInWalkOrder(relative, resumeAfter) <= 0
+                    && !(attrs.isDirectory() && resumeAfter.startsWith(relative))) {
+                continue; // Reconciled by an earlier attempt
+            }
+            if (attrs.isDirectory()) {
+                walk(entry, batch);
+            } else if (attrs.isRegularFile()) {
+                scanned++;
+                if (attrs.lastModifiedTime().toMillis() < settledBefore) {
+                    batch.add(toCandidate(entry, attrs));
+                    if (batch.size() >= batchSize) {
+                        flush(batch);
+                    }
+                }
+            }
+        }
+    }
+
+    private void flush(List<ReportFile> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        registered += fileTransferService.discoverNewFiles(batch).size();
+        watermark = batch.get(batch.size() - 1).getRemotePath();
+        batch.clear();
+    }
+
+    // Name by name, which is the order walk visits the tree in ("a/x" before "a.txt", unlike Path.compareTo)
+    private static int compareInWalkOrder(Path a, Path b) {
+        for (int i = 0; i < Math.min(a.getNameCount(), b.getNameCount()); i++) {
+            int order = a.getName(i).compareTo(b.getName(i));
+            if (order != 0) {
+                return order;
+            }
+        }
+        return Integer.compare(a.getNameCount(), b.getNameCount());
+    }
+
+    private ReportFile toCandidate(Path path, BasicFileAttributes attrs) {
+        Path relative = root.relativize(path);
+        ReportFile file = new ReportFile();
+        file.setFileName(path.getFileName().toString());
+        file.setRemotePath(path.toString());
+        file.setDestinationGroup(relative.getNameCount() > 1 ? relative.getName(0).toString() : defaultGroup);
+        file.setFileSize(attrs.size());
+        return file;
+    }
+
+    public boolean isCaughtUp() {
+        return phase == Phase.CAUGHT_UP;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("phase", phase);
+        status.put("watermark", watermark);
+        status.put("scanned", scanned);
+        status.put("registered", registered);
+        status.put("recovered", recovered);
+        status.put("attempts", attempts);
+        status.put("lastError", lastError);
+        long end = finishedAt > 0 ? finishedAt : System.currentTimeMillis();
+        status.put("elapsedMs", startedAt == 0 ? 0L : end - startedAt);
+        return status;
+    }
+}
@@ -0,0 +1,325 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.dao.ReportFileHistoryRepository;
+import com.scb.rwtoolbackend.dao.ReportFileRepository;
+import com.scb.rwtoolbackend.model.ReportFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Keeps the copies under the local root within max-bytes by evicting the least recently used ones back to
+ * REMOTE-only (remotePath kept, localPath cleared). A download of an evicted file is served from its remote source
+ * while FileTransferService re-fetches the copy in the background.
+ *
+ * The unit of eviction is a blob: every row, active or archived, whose copy has the same contentHash and
+ * storageFormat. Dedup makes those rows share one copy, either as hard links (each row has its own path to the same
+ * inode) or by pointing their localPath at another row's file. A blob is counted once at its storedSize and all of
+ * its rows are moved to REMOTE before any of its paths is deleted, so no LOCAL row is ever left pointing at a
+ * deleted file. Copies without a contentHash are blobs of their own.
+ *
+ * Blobs sit in an access-ordered LinkedHashMap: a download or a landed copy moves its blob to the tail in O(1), and
+ * eviction takes from the head. Every evict-interval-ms a background run evicts at most evict-batch blobs, stopping
+ * once usage is under low-watermark x max-bytes. Recency is not persisted; after a restart blobs are loaded oldest
+ * dateTransferred first, archived rows before active ones, and eviction waits until that load has finished.
+ * max-bytes of 0 keeps the bookkeeping and stats but never evicts.
+ */
+@Component
+public class LocalStorageTier {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalStorageTier.class);
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private static final Comparator<ReportFile> TRANSFER_ORDER = Comparator.comparing(
+        (ReportFile f) -> f.getDateTransferred() != null ? f.getDateTransferred() : f.getDateCreated(),
+        Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private static final class Blob {
+        final String contentHash;
+        final ReportFile.StorageFormat storageFormat;
+        final long bytes;
+        // fileId -> localPath of every row sharing this copy
+        final Map<String, String> paths = new HashMap<>();
+
+        Blob(String contentHash, ReportFile.StorageFormat storageFormat, long bytes) {
+            this.contentHash = contentHash;
+            this.storageFormat = storageFormat;
+            this.bytes = bytes;
+        }
+    }
+
+    @Autowired
+    private ReportFileRepository fileRepository;
+
+    @Autowired
+    private ReportFileHistoryRepository historyRepository;
+
+    // Access order: the head is the least recently used blob. Guarded by 'this', like blobOfFile and usedBytes.
+    private final LinkedHashMap<String, Blob> blobs = new LinkedHashMap<>(1024, 0.75f, true);
+    private final Map<String, String> blobOfFile = new HashMap<>();
+    private long usedBytes;
+
+    private final long maxBytes;
+    private final double lowWatermark;
+    private final int evictBatch;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter evictedBytes;
+    private volatile boolean loaded;
+
+    public LocalStorageTier(MeterRegistry registry,
+                            @Value("${transfer.storage.max-bytes:0}") long maxBytes,
+                            @Value("${transfer.storage.low-watermark:0.9}") double lowWatermark,
+                            @Value("${transfer.storage.evict-batch:100}") int evictBatch) {
+        this.maxBytes = maxBytes;
+        this.lowWatermark = lowWatermark;
+        this.evictBatch = evictBatch;
+        this.hits = Counter.builder("transfer.storage.hits")
+            .description("Downloads served from a local copy")
+            .register(registry);
+        this.misses = Counter.builder("transfer.storage.misses")
+            .description("Downloads of evicted files, served remotely while the copy is re-fetched")
+            .register(registry);
+        this.evictions = Counter.builder("transfer.storage.evictions")
+            .description("Local copies evicted back to REMOTE-only")
+            .register(registry);
+        this.evictedBytes = Counter.builder("transfer.storage.evicted.bytes")
+            .description("Bytes freed under the local root by eviction")
+            .register(registry);
+        Gauge.builder("transfer.storage.used.bytes", this, LocalStorageTier::getUsedBytes)
+            .description("Bytes held by local copies, each shared copy counted once")
+            .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        Thread loader = new Thread(this::load, "local-storage-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    void load() {
+        try {
+            // Archived copies first: they are older and rarely downloaded, so the first to go
+            historyRepository.forEachLocalCopy(row -> track(row.getFileId(), row.getLocalPath(),
+                row.getContentHash(), row.getStorageFormat(), row.getStoredSize()));
+
+            List<ReportFile> active = new ArrayList<>();
+            String afterId = "";
+            List<ReportFile> page;
+            do {
+                page = fileRepository.findStoredAfter(ReportFile.StorageLocation.LOCAL, afterId,
+                    PageRequest.of(0, LOAD_PAGE_SIZE));
+                active.addAll(page);
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).getFileId();
+                }
+            } while (page.size() == LOAD_PAGE_SIZE);
+            active.sort(TRANSFER_ORDER);
+            for (ReportFile file : active) {
+                track(file.getFileId(), file.getLocalPath(), file.getContentHash(), file.getStorageFormat(),
+                    file.getStoredSize());
+            }
+
+            loaded = true;
+            synchronized (this) {
+                log.info("Local storage tier loaded with {} copies, {} bytes", blobs.size(), usedBytes);
+            }
+        } catch (RuntimeException e) {
+            log.error("Local storage tier load failed; local copies will not be evicted", e);
+        }
+    }
+
+    // A copy landed (transfer or re-fetch): it becomes the most recently used
+    public void recordStored(ReportFile file) {
+        track(file.getFileId(), file.getLocalPath(), file.getContentHash(), file.getStorageFormat(),
+            file.getStoredSize());
+    }
+
+    // A download served from the local copy
+    public void recordHit(ReportFile file) {
+        hits.increment();
+        synchronized (this) {
+            String key = blobOfFile.get(file.getFileId());
+            if (key != null) {
+                blobs.get(key);
+                return;
+            }
+        }
+        recordStored(file);
+    }
+
+    // A download of a file whose copy had been evicted
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.storage.evict-interval-ms:30000}")
+    public void scheduledEvict() {
+        try {
+            evict();
+        } catch (RuntimeException e) {
+            log.warn("Local storage eviction failed; will retry", e);
+        }
+    }
+
+    // Evicts least recently used blobs while usage is above the low watermark; returns how many were evicted
+    public int evict() {
+        if (!loaded || maxBytes <= 0) {
+            return 0;
+        }
+        synchronized (this) {
+            if (usedBytes <= maxBytes) {
+                return 0;
+            }
+        }
+        long target = (long) (maxBytes * lowWatermark);
+        int evicted = 0;
+        long freed = 0;
+        while (evicted < evictBatch) {
+            Blob blob;
+            synchronized (this) {
+                if (usedBytes <= target || blobs.isEmpty()) {
+                    break;
+                }
+                blob = untrackEldest();
+            }
+            freed += evictBlob(blob);
+            evicted++;
+        }
+        if (evicted > 0) {
+            log.info("Evicted {} local copies ({} bytes); {} bytes in use", evicted, freed, getUsedBytes());
+        }
+        return evicted;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = (long) hits.count();
+        long missCount = (long) misses.count();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("loaded", loaded);
+        stats.put("maxBytes", maxBytes);
+        synchronized (this) {
+            stats.put("usedBytes", usedBytes);
+            stats.put("copies", blobs.size());
+            stats.put("files", blobOfFile.size());
+        }
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", (long) evictions.count());
+        stats.put("evictedBytes", (long) evictedBytes.count());
+        return stats;
+    }
+
+    // Adds the row to its blob (moving it out of the one it was in) and marks that blob most recently used
+    private synchronized void track(String fileId, String localPath, String contentHash,
+                                    ReportFile.StorageFormat format, Long storedSize) {
+        if (localPath == null) {
+            return;
+        }
+        String key = contentHash != null ? contentHash + "/" + format : "path:" + localPath;
+        String previous = blobOfFile.put(fileId, key);
+        if (previous != null && !previous.equals(key)) {
+            Blob old = blobs.get(previous);
+            if (old != null && old.paths.remove(fileId) != null && old.paths.isEmpty()) {
+                blobs.remove(previous);
+                usedBytes -= old.bytes;
+            }
+        }
+        Blob blob = blobs.get(key);
+        if (blob == null) {
+            blob = new Blob(contentHash, format, storedSize == null ? 0L : storedSize);
+            blobs.put(key, blob);
+            usedBytes += blob.bytes;
+        }
+        blob.paths.put(fileId, localPath);
+    }
+
+    // Removes the least recently used blob from the bookkeeping; the caller then evicts it
+    private Blob untrackEldest() {
+        Iterator<Blob> eldest = blobs.values().iterator();
+        Blob blob = eldest.next();
+        eldest.remove();
+        usedBytes -= blob.bytes;
+        blob.paths.keySet().forEach(blobOfFile::remove);
+        return blob;
+    }
+
+    // Moves every row of the blob to REMOTE-only, then deletes the paths no LOCAL row still uses; returns bytes freed
+    private long evictBlob(Blob blob) {
+        Set<String> fileIds = new HashSet<>(blob.paths.keySet());
+        try {
+            fileRepository.evictLocalCopies(fileIds, ReportFile.TransferStatus.TRANSFERRED,
+                ReportFile.StorageLocation.LOCAL, ReportFile.StorageLocation.REMOTE);
+            historyRepository.clearLocalPaths(fileIds);
+        } catch (DataAccessException e) {
+            // Nothing was deleted; track the blob again so a later run retries it
+            blob.paths.forEach((fileId, path) -> track(fileId, path, blob.contentHash, blob.storageFormat,
+                blob.bytes));
+            throw e;
+        }
+
+        // A transfer that found this blob by contentHash just before the UPDATE may have linked or pointed a new
+        // LOCAL row at it; its paths stay and the row keeps the blob tracked
+        Set<String> keep = new HashSet<>();
+        if (blob.contentHash != null) {
+            for (ReportFile file : fileRepository.findByContentHashAndCurrentLocationAndStorageFormat(
+                    blob.contentHash, ReportFile.StorageLocation.LOCAL, blob.storageFormat)) {
+                if (file.getLocalPath() != null) {
+                    keep.add(file.getLocalPath());
+                    recordStored(file);
+                }
+            }
+        }
+        for (String path : new HashSet<>(blob.paths.values())) {
+            // Any other LOCAL row still using the path, whatever its content hash (e.g. a copy from before targets
+            // were unique per row), keeps the file
+            if (keep.contains(path) || fileRepository.existsByLocalPathAndCurrentLocation(path,
+                    ReportFile.StorageLocation.LOCAL)) {
+                keep.add(path);
+                continue;
+            }
+            try {
+                Files.deleteIfExists(Paths.get(path));
+            } catch (IOException e) {
+                log.warn("Could not delete evicted local copy {}", path, e);
+            }
+        }
+        if (!keep.isEmpty()) {
+            return 0;
+        }
+        evictions.increment();
+        evictedBytes.increment(blob.bytes);
+        return blob.bytes;
+    }
+}
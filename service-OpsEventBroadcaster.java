@@ -0,0 +1,281 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.model.OpsEvent;
+import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * In-process fan-out for /api/ops/events.
+ *
+ * Every publish and every new subscription runs on one dispatcher thread, so events get their ids in order and
+ * the replay buffer and the subscriber list never race. The dispatcher never writes to a socket: it only offers
+ * each event to every subscriber's bounded buffer, and a small pool of sender threads drains the buffers. A slow
+ * client therefore holds up only itself; when its buffer is full its backlog is dropped and replaced by a resync.
+ *
+ * The last replay-size events are kept so a reconnecting client can send Last-Event-ID and receive only what it
+ * missed; if it fell further behind it gets a "resync" event and should refetch the lists. The dispatcher queue is
+ * bounded too: events that do not fit are dropped, and every subscriber is then sent a resync.
+ *
+ * Events come from this node's FileTransferService. In SHARED claim mode, changes made on other nodes reach
+ * subscribers through ActiveFileCache's periodic refresh, up to shared-refresh-ms late.
+ */
+@Component
+public class OpsEventBroadcaster implements FileStateListener {
+
+    private static final String RESYNC_EVENT = "resync";
+
+    // One client stream: its pending events, drained in order by at most one sender thread at a time
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final BlockingQueue<OpsEvent> pending;
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean completed = new AtomicBoolean();
+        volatile long resyncId = -1L;
+        volatile boolean heartbeatDue;
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(subscriberBufferSize);
+        }
+
+        // Replaces whatever is pending with a resync carrying 'eventId'
+        void resync(long eventId) {
+            pending.clear();
+            resyncId = eventId;
+            schedule();
+        }
+
+        void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    long resync = resyncId;
+                    if (resync >= 0) {
+                        resyncId = -1L;
+                        emitter.send(SseEmitter.event().name(RESYNC_EVENT).id(String.valueOf(resync)).data(resync));
+                    }
+                    if (heartbeatDue) {
+                        heartbeatDue = false;
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                    }
+                    OpsEvent event = pending.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.getId()))
+                        .name(event.getType().name())
+                        .data(event));
+                }
+            } catch (IOException | IllegalStateException e) {
+                close(this);
+            } finally {
+                draining.set(false);
+            }
+            if (closed) {
+                if (completed.compareAndSet(false, true)) {
+                    emitter.complete();
+                }
+            } else if (!pending.isEmpty() || resyncId >= 0 || heartbeatDue) {
+                // Work offered after the last poll but before draining was cleared
+                schedule();
+            }
+        }
+    }
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ThreadPoolExecutor dispatcher;
+    private final ExecutorService senders;
+    private final AtomicBoolean eventsLost = new AtomicBoolean();
+
+    // Ring buffer indexed by id % capacity; only touched on the dispatcher thread. A slot holding null or an
+    // event with another id cannot be replayed (a resync used that id, or it was overwritten).
+    private final OpsEvent[] replay;
+    private long lastEventId = 0L;
+
+    private final long emitterTimeoutMillis;
+    private final int subscriberBufferSize;
+
+    public OpsEventBroadcaster(@Value("${ops.events.replay-size:10000}") int replaySize,
+                               @Value("${ops.events.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+                               @Value("${ops.events.dispatch-queue-size:10000}") int dispatchQueueSize,
+                               @Value("${ops.events.subscriber-buffer-size:1000}") int subscriberBufferSize,
+                               @Value("${ops.events.sender-threads:4}") int senderThreads) {
+        this.replay = new OpsEvent[replaySize];
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.subscriberBufferSize = subscriberBufferSize;
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(dispatchQueueSize), daemon("ops-event-dispatcher"));
+        this.senders = Executors.newFixedThreadPool(senderThreads, daemon("ops-event-sender"));
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    @Override
+    public void onStateChange(ReportFileSummary file, ReportFile.TransferStatus previousStatus) {
+        if (previousStatus == null) {
+            publish(OpsEvent.Type.DISCOVERED, file);
+        } else if (previousStatus == ReportFile.TransferStatus.NEW) {
+            publish(OpsEvent.Type.ACKNOWLEDGED, file);
+        } else {
+            publish(OpsEvent.Type.TRANSFER_STATE, file);
+        }
+    }
+
+    public void publish(OpsEvent.Type type, ReportFileSummary file) {
+        LocalDateTime now = LocalDateTime.now();
+        dispatch(() -> {
+            OpsEvent event = new OpsEvent(++lastEventId, type, file, now);
+            replay[(int) (event.getId() % replay.length)] = event;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.pending.offer(event)) {
+                    subscriber.schedule();
+                } else {
+                    // Too far behind: cheaper for the client to refetch its lists than to catch up
+                    subscriber.resync(event.getId());
+                }
+            }
+        });
+    }
+
+    // Registers a subscriber. With a lastSeenId it first replays everything newer than that id; without one it is
+    // sent a resync once registered, which tells the client when to load its lists without missing a change.
+    public SseEmitter subscribe(Long lastSeenId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(e -> close(subscriber));
+
+        // Added before the replay, in the same dispatcher task, so no event falls between the two
+        boolean accepted = dispatch(() -> {
+            subscribers.add(subscriber);
+            if (subscriber.closed) {
+                subscribers.remove(subscriber);
+                return;
+            }
+            if (lastSeenId != null) {
+                replayFrom(subscriber, lastSeenId);
+            } else {
+                subscriber.resync(lastEventId);
+            }
+        });
+        if (!accepted) {
+            // The client retries; by then the dispatcher has caught up
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Comment frames keep proxies from closing idle streams and flush out dead clients
+    @Scheduled(fixedDelayString = "${ops.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        dispatch(() -> {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.heartbeatDue = true;
+                subscriber.schedule();
+            }
+        });
+    }
+
+    // Runs 'task' on the dispatcher; false if the queue was full. A dropped task may have been an event, so the
+    // next task that gets through first sends every subscriber a resync.
+    private boolean dispatch(Runnable task) {
+        try {
+            dispatcher.execute(() -> {
+                if (eventsLost.getAndSet(false)) {
+                    resyncAll();
+                }
+                task.run();
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            eventsLost.set(true);
+            return false;
+        }
+    }
+
+    // Takes an id for the resync, so any Last-Event-ID from before it can no longer be replayed
+    private void resyncAll() {
+        long resyncId = ++lastEventId;
+        replay[(int) (resyncId % replay.length)] = null;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.resync(resyncId);
+        }
+    }
+
+    private void replayFrom(Subscriber subscriber, long lastSeenId) {
+        long oldestAvailable = Math.max(1L, lastEventId - replay.length + 1);
+        boolean replayable = lastSeenId <= lastEventId && lastSeenId >= oldestAvailable - 1
+            && lastEventId - lastSeenId <= subscriberBufferSize;
+        for (long id = lastSeenId + 1; replayable && id <= lastEventId; id++) {
+            OpsEvent event = replay[(int) (id % replay.length)];
+            replayable = event != null && event.getId() == id;
+        }
+        if (!replayable) {
+            // Ids from before a restart or a resync, older than the buffer, or more than the client can take
+            subscriber.resync(lastEventId);
+            return;
+        }
+        for (long id = lastSeenId + 1; id <= lastEventId; id++) {
+            subscriber.pending.offer(replay[(int) (id % replay.length)]);
+        }
+        subscriber.schedule();
+    }
+
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscriber.pending.clear();
+        subscribers.remove(subscriber);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Opaque keyset cursor over (dateCreated, fileId): the position just after the last row of the previous page.
+// History pages use the same encoding with dateTransferred as the date.
+public final class PageCursor {
+
+    private final LocalDateTime dateCreated;
+    private final String fileId;
+
+    private PageCursor(LocalDateTime dateCreated, String fileId) {
+        this.dateCreated = dateCreated;
+        this.fileId = fileId;
+    }
+
+    public LocalDateTime getDateCreated() { return dateCreated; }
+    public String getFileId() { return fileId; }
+
+    public static String encode(ReportFileSummary last) {
+        return encode(last.getDateCreated(), last.getFileId());
+    }
+
+    public static String encode(LocalDateTime date, String fileId) {
+        String raw = date + "|" + fileId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Throws IllegalArgumentException for cursors this service did not issue
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.model.ReportFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/*
+ * Discovers report files under the remote root and registers them as NEW.
+ *
+ * A WatchService thread records created/modified paths; a periodic incremental rescan (files modified since the
+ * previous scan) catches anything the watcher missed, and a full rescan runs after an OVERFLOW. The startup walk of
+ * files that existed before the application came up belongs to InventoryReconciler; this service only picks up
+ * what changed from settle-ms before startup onwards.
+ * Paths are only registered once they have been quiet for settle-ms, and are written through
+ * FileTransferService.discoverNewFiles in batches of batch-size, so a drop of 50k files becomes ~100 batch inserts
+ * on a single connection rather than 50k round trips.
+ *
+ * Layout: <remote-root>/<destinationGroup>/<file>; files directly under the root get default-group.
+ */
+@Service
+public class RemoteDiscoveryService {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteDiscoveryService.class);
+
+    @Autowired
+    private FileTransferService fileTransferService;
+
+    @Value("${transfer.remote-root:/remote/source}")
+    private String remoteRoot;
+
+    @Value("${transfer.discovery.enabled:true}")
+    private boolean enabled;
+
+    @Value("${transfer.discovery.default-group:Unassigned}")
+    private String defaultGroup;
+
+    @Value("${transfer.discovery.batch-size:500}")
+    private int batchSize;
+
+    @Value("${transfer.discovery.settle-ms:2000}")
+    private long settleMillis;
+
+    // Path -> time of the last event seen for it; entries are flushed once that time is older than settle-ms
+    private final ConcurrentHashMap<Path, Long> pending = new ConcurrentHashMap<>();
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+
+    private Path root;
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    // Modification-time watermark for incremental rescans; 0 forces a full rescan
+    private volatile long rescanWatermark = 0L;
+
+    @PostConstruct
+    public void start() throws IOException {
+        root = Paths.get(remoteRoot);
+        if (!enabled || !Files.isDirectory(root)) {
+            log.warn("Remote discovery disabled (enabled={}, root={})", enabled, root);
+            return;
+        }
+        rescanWatermark = System.currentTimeMillis() - settleMillis;
+        watchService = root.getFileSystem().newWatchService();
+        registerTree(root);
+
+        watcherThread = new Thread(this::watchLoop, "remote-discovery-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                Path dir = watchedDirs.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                        // Events were dropped; let the next rescan walk everything
+                        rescanWatermark = 0L;
+                        continue;
+                    }
+                    Path child = dir.resolve((Path) event.context());
+                    if (Files.isDirectory(child)) {
+                        // A new group directory may already contain files by the time it is registered
+                        registerTree(child);
+                        enqueueTree(child, 0L);
+                    } else {
+                        pending.put(child, System.currentTimeMillis());
+                    }
+                }
+                if (!key.reset()) {
+                    watchedDirs.remove(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Shutting down
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Remote discovery watcher stopped; relying on periodic rescans", e);
+        }
+    }
+
+    private void registerTree(Path dir) throws IOException {
+        try (Stream<Path> dirs = Files.walk(dir)) {
+            for (Path d : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                WatchKey key = d.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirs.put(key, d);
+            }
+        }
+    }
+
+    // Periodic safety net: walks the tree and queues files modified since the previous scan
+    @Scheduled(initialDelayString = "${transfer.discovery.rescan-interval-ms:300000}",
+               fixedDelayString = "${transfer.discovery.rescan-interval-ms:300000}")
+    public void rescan() {
+        if (watchService == null) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        long watermark = rescanWatermark;
+        try {
+            enqueueTree(root, watermark);
+            // Overlap by settle-ms so files still being written during this scan are seen again next time
+            rescanWatermark = startedAt - settleMillis;
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Remote rescan of {} failed", root, e);
+        }
+    }
+
+    private void enqueueTree(Path dir, long modifiedSince) throws IOException {
+        try (Stream<Path> files = Files.find(dir, Integer.MAX_VALUE,
+                (path, attrs) -> attrs.isRegularFile() && attrs.lastModifiedTime().toMillis() >= modifiedSince)) {
+            files.forEach(path -> pending.merge(path, lastModified(path), Math::max));
+        }
+    }
+
+    // Registers settled paths in batches; a failed batch is put back and retried on the next flush
+    @Scheduled(fixedDelayString = "${transfer.discovery.flush-interval-ms:1000}")
+    public void flushPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - settleMillis;
+        List<ReportFile> batch = new ArrayList<>(batchSize);
+        for (Map.Entry<Path, Long> entry : pending.entrySet()) {
+            if (entry.getValue() > cutoff || !pending.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            ReportFile candidate = toCandidate(entry.getKey());
+            if (candidate != null) {
+                batch.add(candidate);
+            }
+            if (batch.size() >= batchSize) {
+                register(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        register(batch);
+    }
+
+    private void register(List<ReportFile> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            fileTransferService.discoverNewFiles(batch);
+        } catch (RuntimeException e) {
+            log.warn("Registering {} discovered files failed; will retry", batch.size(), e);
+            for (ReportFile file : batch) {
+                pending.putIfAbsent(Paths.get(file.getRemotePath()), 0L);
+            }
+        }
+    }
+
+    private ReportFile toCandidate(Path path) {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null; // Removed before it settled
+        }
+        if (!attrs.isRegularFile()) {
+            return null;
+        }
+        Path relative = root.relativize(path);
+
+        ReportFile file = new ReportFile();
+        file.setFileName(path.getFileName().toString());
+        file.setRemotePath(path.toString());
+        file.setDestinationGroup(relative.getNameCount() > 1 ? relative.getName(0).toString() : defaultGroup);
+        file.setFileSize(attrs.size());
+        return file;
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return System.currentTimeMillis();
+        }
+    }
+}
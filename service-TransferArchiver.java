@@ -0,0 +1,100 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.dao.ReportFileHistoryRepository;
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ * Moves TRANSFERRED rows older than min-age-ms from report_files into the partitioned report_files_history, so the
+ * active table (and the queue/notification indexes on it) only holds work in flight plus recent completions.
+ *
+ * Each run moves at most max-batches batches of batch-size rows. Every batch is one short autocommit statement
+ * that skips locked rows, with pause-ms between batches, so archival never holds locks the live queue waits on.
+ * Archived rows keep their localPath: files on disk are untouched, dedup links to them stay valid, and
+ * LocalStorageTier keeps counting them until it evicts them.
+ */
+@Component
+public class TransferArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferArchiver.class);
+
+    private final ReportFileHistoryRepository historyRepository;
+    private final List<FileStateListener> stateListeners;
+    private final Counter archivedRows;
+    private final boolean enabled;
+    private final long minAgeMillis;
+    private final int batchSize;
+    private final int maxBatches;
+    private final long pauseMillis;
+
+    public TransferArchiver(ReportFileHistoryRepository historyRepository, List<FileStateListener> stateListeners,
+                            MeterRegistry registry,
+                            @Value("${transfer.archive.enabled:true}") boolean enabled,
+                            @Value("${transfer.archive.min-age-ms:86400000}") long minAgeMillis,
+                            @Value("${transfer.archive.batch-size:500}") int batchSize,
+                            @Value("${transfer.archive.max-batches:200}") int maxBatches,
+                            @Value("${transfer.archive.pause-ms:50}") long pauseMillis) {
+        this.historyRepository = historyRepository;
+        this.stateListeners = stateListeners;
+        this.archivedRows = Counter.builder("transfer.archived.rows")
+            .description("Rows moved from report_files to report_files_history")
+            .register(registry);
+        this.enabled = enabled;
+        this.minAgeMillis = minAgeMillis;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @Scheduled(initialDelayString = "${transfer.archive.interval-ms:600000}",
+               fixedDelayString = "${transfer.archive.interval-ms:600000}")
+    public void scheduledArchive() {
+        if (!enabled || !historyRepository.isAvailable()) {
+            return;
+        }
+        try {
+            archive();
+        } catch (DataAccessException e) {
+            log.warn("Archival run failed; will retry", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Returns the number of rows moved in this run
+    public long archive() throws InterruptedException {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(minAgeMillis * 1_000_000L);
+        LocalDateTime oldest = historyRepository.findOldestArchivable(cutoff);
+        if (oldest == null) {
+            return 0;
+        }
+        // Every month a batch can write into must have its partition before the INSERT runs
+        historyRepository.ensurePartitions(oldest, cutoff);
+
+        long moved = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<ReportFileSummary> rows = historyRepository.archiveBatch(cutoff, batchSize);
+            moved += rows.size();
+            archivedRows.increment(rows.size());
+            if (!rows.isEmpty()) {
+                stateListeners.forEach(listener -> listener.onRemoved(rows));
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+            Thread.sleep(pauseMillis);
+        }
+        log.info("Archived {} TRANSFERRED rows completed before {}", moved, cutoff);
+        return moved;
+    }
+}
@@ -0,0 +1,208 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.dao.ReportFileRepository;
+import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.model.ReportFileCount;
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Rows and bytes of report_files per TransferStatus x destinationGroup, kept in memory for the dashboard summary.
+ *
+ * Every status change FileTransferService publishes moves one row from its previous cell to its new one, and
+ * archival removes rows; each cell is a pair of LongAdders, so concurrent transfers never contend on a shared
+ * counter and nothing is ever scanned to answer a read. A read sums the adders and can be off by a change in flight.
+ *
+ * Changes this node never sees (other replicas, direct database edits) are corrected every reconcile-interval-ms by
+ * one GROUP BY over report_files. Each cell is moved by (database value - its value when the query started), so
+ * changes counted while the query ran are kept. Until the first reconciliation the counts are not reported.
+ * In SHARED claim mode most transitions happen on other nodes, so the counts are also reconciled every
+ * shared-reconcile-interval-ms.
+ */
+@Component
+public class TransferCounters implements FileStateListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferCounters.class);
+
+    private static final ReportFile.TransferStatus[] STATUSES = ReportFile.TransferStatus.values();
+
+    private static final class Cell {
+        final LongAdder files = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+
+        void add(long fileDelta, long byteDelta) {
+            files.add(fileDelta);
+            bytes.add(byteDelta);
+        }
+    }
+
+    @Autowired
+    private ReportFileRepository fileRepository;
+
+    @Autowired
+    private ClusterNode clusterNode;
+
+    // destinationGroup ("" for none) -> one cell per TransferStatus ordinal
+    private final ConcurrentHashMap<String, Cell[]> groups = new ConcurrentHashMap<>();
+
+    private volatile boolean ready = false;
+    private volatile LocalDateTime reconciledAt;
+    private volatile long lastDriftFiles;
+
+    @Override
+    public void onStateChange(ReportFileSummary file, ReportFile.TransferStatus previousStatus) {
+        Cell[] cells = cellsFor(file.getDestinationGroup());
+        long size = sizeOf(file);
+        if (previousStatus != null) {
+            cells[previousStatus.ordinal()].add(-1, -size);
+        }
+        cells[file.getTransferStatus().ordinal()].add(1, size);
+    }
+
+    // Counted by the next reconciliation; applying it here as well would count it twice
+    @Override
+    public void onRemoteChange(ReportFileSummary file, ReportFile.TransferStatus previousStatus) {
+    }
+
+    @Override
+    public void onRemoved(Collection<ReportFileSummary> files) {
+        for (ReportFileSummary file : files) {
+            cellsFor(file.getDestinationGroup())[file.getTransferStatus().ordinal()].add(-1, -sizeOf(file));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ops.counters.reconcile-interval-ms:300000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Dashboard counter reconciliation failed; will retry", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ops.counters.shared-reconcile-interval-ms:15000}")
+    public void scheduledSharedReconcile() {
+        if (clusterNode.isShared()) {
+            scheduledReconcile();
+        }
+    }
+
+    // Brings every cell in line with the database; returns how many rows the counters had drifted by in total
+    public long reconcile() {
+        Map<String, long[][]> before = new HashMap<>();
+        groups.forEach((group, cells) -> before.put(group, read(cells)));
+
+        Map<String, long[][]> actual = new HashMap<>();
+        for (ReportFileCount count : fileRepository.countByStatusAndGroup()) {
+            long[][] values = actual.computeIfAbsent(groupKey(count.getDestinationGroup()),
+                g -> new long[STATUSES.length][2]);
+            values[count.getTransferStatus().ordinal()][0] += count.getFiles();
+            values[count.getTransferStatus().ordinal()][1] += count.getBytes();
+        }
+
+        Set<String> keys = new HashSet<>(before.keySet());
+        keys.addAll(actual.keySet());
+        long drift = 0;
+        for (String group : keys) {
+            Cell[] cells = cellsFor(group);
+            long[][] was = before.getOrDefault(group, new long[STATUSES.length][2]);
+            long[][] is = actual.getOrDefault(group, new long[STATUSES.length][2]);
+            for (int status = 0; status < STATUSES.length; status++) {
+                long fileDelta = is[status][0] - was[status][0];
+                long byteDelta = is[status][1] - was[status][1];
+                if (fileDelta != 0 || byteDelta != 0) {
+                    cells[status].add(fileDelta, byteDelta);
+                    drift += Math.abs(fileDelta);
+                }
+            }
+        }
+
+        if (ready && drift > 0) {
+            log.info("Dashboard counters corrected by {} rows", drift);
+        }
+        lastDriftFiles = drift;
+        reconciledAt = LocalDateTime.now();
+        ready = true;
+        return drift;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Totals per status and the non-empty status x destinationGroup cells
+    public Map<String, Object> snapshot() {
+        Map<ReportFile.TransferStatus, Map<String, Long>> totals = new EnumMap<>(ReportFile.TransferStatus.class);
+        for (ReportFile.TransferStatus status : STATUSES) {
+            Map<String, Long> total = new LinkedHashMap<>();
+            total.put("files", 0L);
+            total.put("bytes", 0L);
+            totals.put(status, total);
+        }
+        List<ReportFileCount> cells = new ArrayList<>();
+        groups.forEach((group, groupCells) -> {
+            long[][] values = read(groupCells);
+            for (ReportFile.TransferStatus status : STATUSES) {
+                long files = values[status.ordinal()][0];
+                long bytes = values[status.ordinal()][1];
+                if (files == 0 && bytes == 0) {
+                    continue;
+                }
+                cells.add(new ReportFileCount(status, group.isEmpty() ? null : group, files, bytes));
+                totals.get(status).merge("files", files, Long::sum);
+                totals.get(status).merge("bytes", bytes, Long::sum);
+            }
+        });
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("totals", totals);
+        snapshot.put("groups", cells);
+        snapshot.put("reconciledAt", reconciledAt);
+        snapshot.put("lastDriftFiles", lastDriftFiles);
+        return snapshot;
+    }
+
+    private Cell[] cellsFor(String destinationGroup) {
+        return groups.computeIfAbsent(groupKey(destinationGroup), g -> {
+            Cell[] cells = new Cell[STATUSES.length];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = new Cell();
+            }
+            return cells;
+        });
+    }
+
+    private static long[][] read(Cell[] cells) {
+        long[][] values = new long[cells.length][2];
+        for (int i = 0; i < cells.length; i++) {
+            values[i][0] = cells[i].files.sum();
+            values[i][1] = cells[i].bytes.sum();
+        }
+        return values;
+    }
+
+    private static long sizeOf(ReportFileSummary file) {
+        return file.getFileSize() == null ? 0L : file.getFileSize();
+    }
+
+    private static String groupKey(String destinationGroup) {
+        return destinationGroup == null ? "" : destinationGroup;
+    }
+}
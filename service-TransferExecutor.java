@@ -0,0 +1,170 @@
+package com.scb.rwtoolbackend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Bounded worker pool that runs file copies off the request thread.
+ * Submissions beyond pool-size + queue-capacity are rejected so the API can answer 503 instead of piling up work.
+ */
+@Component
+public class TransferExecutor {
+
+    public enum JobState {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+
+    // Snapshot of a single transfer job, returned by the job-status lookup
+    public static class TransferJob {
+        private final String fileId;
+        private final LocalDateTime submittedAt;
+        private volatile JobState state = JobState.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        TransferJob(String fileId) {
+            this.fileId = fileId;
+            this.submittedAt = LocalDateTime.now();
+        }
+
+        // Job view for transfers no longer tracked in memory (finished and pruned, or started before a restart)
+        public static TransferJob of(String fileId, JobState state) {
+            TransferJob job = new TransferJob(fileId);
+            job.state = state;
+            return job;
+        }
+
+        public static TransferJob of(String fileId, JobState state, String error) {
+            TransferJob job = of(fileId, state);
+            job.error = error;
+            return job;
+        }
+
+        public String getFileId() { return fileId; }
+        public JobState getState() { return state; }
+        public LocalDateTime getSubmittedAt() { return submittedAt; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+        public String getError() { return error; }
+
+        boolean isFinished() {
+            return state == JobState.SUCCEEDED || state == JobState.FAILED;
+        }
+    }
+
+    private final ThreadPoolExecutor pool;
+    private final ConcurrentHashMap<String, TransferJob> jobs = new ConcurrentHashMap<>();
+    private final int jobRetention;
+
+    public TransferExecutor(@Value("${transfer.executor.pool-size:4}") int poolSize,
+                            @Value("${transfer.executor.queue-capacity:1000}") int queueCapacity,
+                            @Value("${transfer.executor.job-retention:10000}") int jobRetention) {
+        this.pool = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), new WorkerThreadFactory(),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.jobRetention = jobRetention;
+    }
+
+    // Queues the copy for fileId. Throws RejectedExecutionException when the pool and queue are full.
+    public TransferJob submit(String fileId, Callable<?> work) {
+        pruneFinishedJobs();
+
+        TransferJob job = new TransferJob(fileId);
+        jobs.put(fileId, job);
+        try {
+            pool.execute(() -> run(job, work));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(fileId, job);
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<TransferJob> getJob(String fileId) {
+        return Optional.ofNullable(jobs.get(fileId));
+    }
+
+    // Transfers submitted here that have not finished yet (queued in the pool or running)
+    public List<String> getActiveFileIds() {
+        List<String> ids = new ArrayList<>();
+        for (TransferJob job : jobs.values()) {
+            if (!job.isFinished()) {
+                ids.add(job.getFileId());
+            }
+        }
+        return ids;
+    }
+
+    public boolean isActive(String fileId) {
+        TransferJob job = jobs.get(fileId);
+        return job != null && !job.isFinished();
+    }
+
+    public int getQueueDepth() {
+        return pool.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    private void run(TransferJob job, Callable<?> work) {
+        job.startedAt = LocalDateTime.now();
+        job.state = JobState.RUNNING;
+        try {
+            work.call();
+            job.state = JobState.SUCCEEDED;
+        } catch (Exception e) {
+            job.error = e.getMessage();
+            job.state = JobState.FAILED;
+        } catch (Error e) {
+            // A job left RUNNING would stay active forever: its lease would keep being renewed and its capacity
+            // never returned. Mark it failed, then let the worker thread die with the error as usual.
+            job.error = e.toString();
+            job.state = JobState.FAILED;
+            throw e;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    // Keeps the status map bounded; finished jobs can still be looked up from the ReportFile row
+    private void pruneFinishedJobs() {
+        if (jobs.size() < jobRetention) {
+            return;
+        }
+        jobs.values().removeIf(TransferJob::isFinished);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "transfer-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
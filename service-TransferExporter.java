@@ -0,0 +1,174 @@
+package com.scb.rwtoolbackend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scb.rwtoolbackend.dao.ReportFileExportRepository;
+import com.scb.rwtoolbackend.model.ReportFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.function.Function;
+
+/*
+ * Audit export of report_files plus the archived history as NDJSON (one JSON object per line) or CSV (RFC 4180,
+ * header row first). Both formats carry the same columns in the same order.
+ *
+ * Each row is written as soon as the cursor in ReportFileExportRepository yields it, through one buffered writer,
+ * so the export runs in constant memory regardless of how many rows match.
+ */
+@Component
+public class TransferExporter {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+    }
+
+    private static final class Column {
+        final String name;
+        final Function<ReportFile, Object> value;
+
+        Column(String name, Function<ReportFile, Object> value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+
+    private static final Column[] COLUMNS = {
+        new Column("fileId", ReportFile::getFileId),
+        new Column("fileName", ReportFile::getFileName),
+        new Column("destinationGroup", ReportFile::getDestinationGroup),
+        new Column("transferStatus", ReportFile::getTransferStatus),
+        new Column("currentLocation", ReportFile::getCurrentLocation),
+        new Column("remotePath", ReportFile::getRemotePath),
+        new Column("localPath", ReportFile::getLocalPath),
+        new Column("storageFormat", ReportFile::getStorageFormat),
+        new Column("dateCreated", ReportFile::getDateCreated),
+        new Column("dateTransferred", ReportFile::getDateTransferred),
+        new Column("fileSize", ReportFile::getFileSize),
+        new Column("storedSize", ReportFile::getStoredSize),
+        new Column("checksum", ReportFile::getChecksum),
+        new Column("contentHash", ReportFile::getContentHash),
+        new Column("attemptCount", ReportFile::getAttemptCount),
+        new Column("lastError", ReportFile::getLastError)
+    };
+
+    @Autowired
+    private ReportFileExportRepository exportRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Writes every matching row to 'out' (left open) and returns how many were written
+    public long export(Format format, String destinationGroup, Collection<ReportFile.TransferStatus> statuses,
+                       LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        // No root value separator: each object ends with its own newline instead of being followed by a space
+        JsonGenerator json = format == Format.NDJSON
+            ? objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null)
+            : null;
+        if (format == Format.CSV) {
+            writeCsvHeader(writer);
+        }
+        long rows;
+        try {
+            rows = exportRepository.stream(destinationGroup, statuses, from, to, file -> {
+                try {
+                    if (json != null) {
+                        writeJson(json, file);
+                    } else {
+                        writeCsv(writer, file);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; the cursor is closed with the aborted transaction
+            throw e.getCause();
+        }
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeJson(JsonGenerator json, ReportFile file) throws IOException {
+        json.writeStartObject();
+        for (Column column : COLUMNS) {
+            Object value = column.value.apply(file);
+            json.writeFieldName(column.name);
+            if (value == null) {
+                json.writeNull();
+            } else if (value instanceof Number) {
+                json.writeNumber(((Number) value).longValue());
+            } else {
+                json.writeString(value.toString());
+            }
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private static void writeCsvHeader(Writer writer) throws IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(COLUMNS[i].name);
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCsv(Writer writer, ReportFile file) throws IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = COLUMNS[i].value.apply(file);
+            if (value != null) {
+                writeCsvField(writer, value.toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    // Quotes fields containing a separator, quote or line break; embedded quotes are doubled
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,187 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.dao.ReportFileRepository;
+import com.scb.rwtoolbackend.model.ReportFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Heartbeat leases for PROCESSING rows.
+ *
+ * Every heartbeat-ms this node stamps heartbeatAt on the transfers it holds (queued in TransferScheduler or
+ * queued/running in TransferExecutor). A PROCESSING row whose heartbeat is older than lease-ms has lost its
+ * worker: the process crashed or was restarted mid-copy. recoverStale claims such rows one at a time with a
+ * conditional UPDATE and hands them back to FileTransferService, which re-queues them (the copy resumes from
+ * its durable progress) or, if the scheduler is full, resets them to READY_TO_TRANSFER.
+ *
+ * Leases carry the owning node (ClusterNode), so replicas only refresh their own rows. In SHARED claim mode
+ * recovery hands stale rows back to the unowned pool instead, and claimPending pulls batches from that pool up to
+ * max-backlog transfers held by this node; a node that dies simply stops heartbeating and its rows return to the
+ * pool after lease-ms.
+ */
+@Component
+public class TransferLeaseManager {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferLeaseManager.class);
+
+    @Autowired
+    private ReportFileRepository fileRepository;
+
+    @Autowired
+    private TransferScheduler transferScheduler;
+
+    @Autowired
+    private TransferExecutor transferExecutor;
+
+    @Autowired
+    private FileTransferService fileTransferService;
+
+    @Autowired
+    private ClusterNode clusterNode;
+
+    @Value("${transfer.recovery.lease-ms:300000}")
+    private long leaseMillis;
+
+    @Value("${transfer.recovery.batch-size:500}")
+    private int batchSize;
+
+    @Value("${transfer.cluster.claim-batch-size:50}")
+    private int claimBatchSize;
+
+    // Transfers this node holds at most (queued + running); defaults to twice the executor pool
+    @Value("${transfer.cluster.max-backlog:0}")
+    private int maxBacklog;
+
+    @Value("${transfer.executor.pool-size:4}")
+    private int poolSize;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private LocalDateTime lastClaimStamp = LocalDateTime.MIN;
+
+    @Scheduled(fixedDelayString = "${transfer.recovery.heartbeat-ms:30000}")
+    public void heartbeat() {
+        // Scheduler before executor: a transfer moving between them is then seen by at least one of the reads
+        Set<String> held = new LinkedHashSet<>(transferScheduler.getQueuedFileIds());
+        held.addAll(transferExecutor.getActiveFileIds());
+        if (held.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<String> ids = List.copyOf(held);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            fileRepository.heartbeat(ids.subList(from, Math.min(ids.size(), from + batchSize)),
+                ReportFile.TransferStatus.PROCESSING, clusterNode.getNodeId(), now);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${transfer.recovery.scan-interval-ms:60000}",
+               fixedDelayString = "${transfer.recovery.scan-interval-ms:60000}")
+    public void scheduledRecovery() {
+        try {
+            recoverStale();
+        } catch (RuntimeException e) {
+            log.warn("Stale transfer recovery failed; will retry", e);
+        }
+    }
+
+    // Walks stale PROCESSING rows in fileId order, batch-size at a time; returns how many were recovered
+    public int recoverStale() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minusNanos(leaseMillis * 1_000_000L);
+        int recovered = 0;
+        String after = "";
+        List<String> stale;
+        do {
+            stale = fileRepository.findStaleIds(ReportFile.TransferStatus.PROCESSING, cutoff, after,
+                PageRequest.of(0, batchSize));
+            for (String fileId : stale) {
+                if (transferScheduler.isQueued(fileId) || transferExecutor.isActive(fileId)) {
+                    continue; // Ours and alive; the next heartbeat refreshes it
+                }
+                // SHARED: back to the pool with no owner, claimPending picks it up on whichever node has capacity
+                String owner = clusterNode.ownerForNewTransfer();
+                if (fileRepository.claimStale(fileId, ReportFile.TransferStatus.PROCESSING, cutoff, owner, now) == 1) {
+                    if (owner != null) {
+                        fileTransferService.resumeTransfer(fileId);
+                    }
+                    recovered++;
+                }
+            }
+            if (!stale.isEmpty()) {
+                after = stale.get(stale.size() - 1);
+            }
+        } while (stale.size() == batchSize);
+
+        if (recovered > 0) {
+            log.info("Recovered {} PROCESSING transfers whose lease expired", recovered);
+        }
+        return recovered;
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.cluster.claim-interval-ms:1000}")
+    public void scheduledClaim() {
+        if (!clusterNode.isShared()) {
+            return;
+        }
+        try {
+            // A full batch means more work is probably waiting; keep claiming while there is capacity
+            int won;
+            do {
+                won = claimPending();
+            } while (won == claimBatchSize);
+        } catch (RuntimeException e) {
+            log.warn("Claiming pending transfers failed; will retry", e);
+        }
+    }
+
+    // SHARED claim mode: takes up to claim-batch-size unowned PROCESSING rows (bounded by this node's spare
+    // capacity) in one conditional UPDATE and queues them; returns how many this node won
+    public int claimPending() {
+        int held = transferScheduler.getQueuedCount() + transferExecutor.getActiveFileIds().size();
+        int capacity = Math.min(claimBatchSize, (maxBacklog > 0 ? maxBacklog : poolSize * 2) - held);
+        if (capacity <= 0) {
+            return 0;
+        }
+        List<String> candidates = fileRepository.findUnclaimedIds(ReportFile.TransferStatus.PROCESSING,
+            PageRequest.of(0, capacity));
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        String nodeId = clusterNode.getNodeId();
+        LocalDateTime claimedAt = nextClaimStamp();
+        if (fileRepository.claimUnclaimed(candidates, ReportFile.TransferStatus.PROCESSING, nodeId, claimedAt) == 0) {
+            return 0; // Every candidate went to another node first
+        }
+        List<String> won = fileRepository.findClaimedIds(candidates, ReportFile.TransferStatus.PROCESSING, nodeId,
+            claimedAt);
+        for (String fileId : won) {
+            fileTransferService.resumeTransfer(fileId);
+        }
+        claimed.addAndGet(won.size());
+        return won.size();
+    }
+
+    public long getClaimedCount() {
+        return claimed.get();
+    }
+
+    // Claim stamps are unique per node, so findClaimedIds never returns a row this node claimed in an earlier
+    // round; microseconds is the precision the timestamp column keeps
+    private synchronized LocalDateTime nextClaimStamp() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        lastClaimStamp = now.isAfter(lastClaimStamp) ? now : lastClaimStamp.plus(1, ChronoUnit.MICROS);
+        return lastClaimStamp;
+    }
+}
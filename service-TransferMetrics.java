@@ -0,0 +1,236 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.model.ReportFile;
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Micrometer meters for the transfer pipeline, served by /api/ops/metrics and, with Actuator, /actuator/metrics.
+ *
+ * Every meter is registered once (up front, or the first time a method or destinationGroup is seen) and kept in
+ * a field or map, so recording on the hot path is a map lookup plus an atomic update: no tag or name strings are
+ * built per call.
+ *
+ *   ops.service / ops.repository   timer per FileTransferService / ReportFileRepository method and outcome
+ *   transfer.duration              wall time of completed copies
+ *   transfer.bytes                 bytes copied by completed transfers
+ *   transfer.throughput            bytes/second of each completed transfer
+ *   transfer.failures              failed transfers per destinationGroup
+ *   transfer.dedup.hits / .bytes   transfers satisfied by an identical local blob, and the bytes not copied
+ *   transfer.status.time           time a file spent in a status before leaving it
+ *   transfer.files.active          active rows per status and destinationGroup (from ActiveFileCache)
+ *   transfer.scheduler.queued      transfers waiting in TransferScheduler per destinationGroup
+ *   transfer.executor.*            executor queue depth and busy workers
+ */
+@Component
+public class TransferMetrics implements FileStateListener {
+
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_ERROR = "error";
+
+    // Statuses a file may stay in indefinitely; its entry time is dropped there, so the map only holds active files.
+    // FAILED counts as one: a retry brings the file back to PROCESSING, but its wait in FAILED is not timed.
+    private static final Set<ReportFile.TransferStatus> UNTRACKED_STATUSES = EnumSet.of(
+        ReportFile.TransferStatus.TRANSFERRED,
+        ReportFile.TransferStatus.FAILED,
+        ReportFile.TransferStatus.DEAD_LETTER);
+
+    private final MeterRegistry registry;
+    private final ActiveFileCache activeFileCache;
+    private final TransferScheduler transferScheduler;
+
+    private final Timer transferDuration;
+    private final Counter transferBytes;
+    private final DistributionSummary transferThroughput;
+    private final Counter dedupHits;
+    private final Counter dedupBytesSaved;
+    private final Map<ReportFile.TransferStatus, Timer> statusTime = new EnumMap<>(ReportFile.TransferStatus.class);
+
+    // [success, error] per instrumented method
+    private final ConcurrentHashMap<Method, Timer[]> operationTimers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> failuresByGroup = new ConcurrentHashMap<>();
+    private final Set<String> gaugedGroups = ConcurrentHashMap.newKeySet();
+
+    // Epoch millis at which each tracked file entered its current status; active statuses only
+    private final ConcurrentHashMap<String, Long> enteredStatusAt = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TransferMetrics(MeterRegistry registry, ActiveFileCache activeFileCache,
+                           TransferScheduler transferScheduler, TransferExecutor transferExecutor) {
+        this.registry = registry;
+        this.activeFileCache = activeFileCache;
+        this.transferScheduler = transferScheduler;
+
+        this.transferDuration = Timer.builder("transfer.duration")
+            .description("Wall time of completed copies")
+            .publishPercentiles(0.5, 0.99)
+            .register(registry);
+        this.transferBytes = Counter.builder("transfer.bytes")
+            .description("Bytes copied by completed transfers")
+            .baseUnit("bytes")
+            .register(registry);
+        this.transferThroughput = DistributionSummary.builder("transfer.throughput")
+            .description("Bytes per second of each completed transfer")
+            .baseUnit("bytes/s")
+            .publishPercentiles(0.5, 0.99)
+            .register(registry);
+        this.dedupHits = Counter.builder("transfer.dedup.hits")
+            .description("Transfers completed by linking an identical local blob")
+            .register(registry);
+        this.dedupBytesSaved = Counter.builder("transfer.dedup.bytes")
+            .description("Bytes not copied thanks to deduplication")
+            .baseUnit("bytes")
+            .register(registry);
+        for (ReportFile.TransferStatus status : ReportFile.TransferStatus.values()) {
+            statusTime.put(status, Timer.builder("transfer.status.time")
+                .description("Time spent in a status before the next transition")
+                .tag("status", status.name())
+                .register(registry));
+        }
+
+        Gauge.builder("transfer.executor.queue.depth", transferExecutor, TransferExecutor::getQueueDepth)
+            .register(registry);
+        Gauge.builder("transfer.executor.active", transferExecutor, TransferExecutor::getActiveCount)
+            .register(registry);
+    }
+
+    // Timer for one invocation of an instrumented method; created on the first call of that method
+    public Timer operationTimer(String meterName, Method method, boolean success) {
+        Timer[] timers = operationTimers.get(method);
+        if (timers == null) {
+            timers = operationTimers.computeIfAbsent(method, m -> new Timer[] {
+                Timer.builder(meterName).tags("method", m.getName(), "outcome", OUTCOME_SUCCESS).register(registry),
+                Timer.builder(meterName).tags("method", m.getName(), "outcome", OUTCOME_ERROR).register(registry)
+            });
+        }
+        return timers[success ? 0 : 1];
+    }
+
+    public void recordTransfer(long bytes, long elapsedNanos) {
+        transferDuration.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        transferBytes.increment(bytes);
+        if (elapsedNanos > 0) {
+            transferThroughput.record(bytes * 1_000_000_000.0 / elapsedNanos);
+        }
+    }
+
+    public void recordDedupHit(long bytesSaved) {
+        dedupHits.increment();
+        dedupBytesSaved.increment(bytesSaved);
+    }
+
+    public void recordFailure(String destinationGroup) {
+        String group = destinationGroup == null ? "" : destinationGroup;
+        Counter counter = failuresByGroup.get(group);
+        if (counter == null) {
+            counter = failuresByGroup.computeIfAbsent(group, g -> Counter.builder("transfer.failures")
+                .tag("group", g)
+                .register(registry));
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void onStateChange(ReportFileSummary file, ReportFile.TransferStatus previousStatus) {
+        long now = System.currentTimeMillis();
+        if (previousStatus != null) {
+            Long entered = enteredStatusAt.get(file.getFileId());
+            if (entered == null && previousStatus == ReportFile.TransferStatus.NEW && file.getDateCreated() != null) {
+                // Discovered before this instance started: NEW began at dateCreated
+                entered = file.getDateCreated().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+            if (entered != null) {
+                statusTime.get(previousStatus).record(Math.max(0L, now - entered), TimeUnit.MILLISECONDS);
+            }
+        }
+        if (UNTRACKED_STATUSES.contains(file.getTransferStatus())) {
+            enteredStatusAt.remove(file.getFileId());
+        } else {
+            enteredStatusAt.put(file.getFileId(), now);
+        }
+        registerGroupGauges(file.getDestinationGroup() == null ? "" : file.getDestinationGroup());
+    }
+
+    // The node that made the change records the time in status; this node drops its own, now stale, entry time
+    @Override
+    public void onRemoteChange(ReportFileSummary file, ReportFile.TransferStatus previousStatus) {
+        enteredStatusAt.remove(file.getFileId());
+        registerGroupGauges(file.getDestinationGroup() == null ? "" : file.getDestinationGroup());
+    }
+
+    @Override
+    public void onRemoved(Collection<ReportFileSummary> files) {
+        for (ReportFileSummary file : files) {
+            enteredStatusAt.remove(file.getFileId());
+        }
+    }
+
+    // Picks up groups loaded by the cache warm-up, which do not pass through onStateChange
+    @Scheduled(fixedDelayString = "${ops.metrics.group-refresh-ms:60000}")
+    public void registerKnownGroups() {
+        for (String group : activeFileCache.getGroups()) {
+            registerGroupGauges(group);
+        }
+    }
+
+    private void registerGroupGauges(String group) {
+        if (!gaugedGroups.add(group)) {
+            return;
+        }
+        for (ReportFile.TransferStatus status : ActiveFileCache.ACTIVE_STATUSES) {
+            Gauge.builder("transfer.files.active", activeFileCache, cache -> cache.count(status, group))
+                .tags("status", status.name(), "group", group)
+                .register(registry);
+        }
+        Gauge.builder("transfer.scheduler.queued", transferScheduler, s -> s.getQueuedCount(group))
+            .tag("group", group)
+            .register(registry);
+    }
+
+    // Current value of every pipeline meter, keyed "name{tag=value,...}"; built per request, off the hot path
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        for (Meter meter : registry.getMeters()) {
+            String name = meter.getId().getName();
+            if (!name.startsWith("ops.") && !name.startsWith("transfer.")) {
+                continue;
+            }
+            StringBuilder key = new StringBuilder(name);
+            if (!meter.getId().getTags().isEmpty()) {
+                key.append('{');
+                for (Tag tag : meter.getId().getTags()) {
+                    key.append(tag.getKey()).append('=').append(tag.getValue()).append(',');
+                }
+                key.setCharAt(key.length() - 1, '}');
+            }
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (Measurement measurement : meter.measure()) {
+                values.put(measurement.getStatistic().getTagValueRepresentation(), measurement.getValue());
+            }
+            snapshot.put(key.toString(), values);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,327 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.model.ReportFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/*
+ * Staged write path for transfers whose destinationGroup stores files compressed
+ * (transfer.compression.formats.<group>=GZIP, default transfer.compression.default-format=RAW).
+ *
+ * Each chunk read from the source goes through checksum (CRC32C + SHA-256 of the original bytes), then
+ * compression, then the target channel. Chunks live in pooled direct buffers and Deflater/Inflater work on those
+ * buffers directly, so the per-chunk path allocates nothing. The stored file is standard gzip and can be
+ * verified by stream-decompressing it back (readBackChecksum) or served decompressed (openForRead).
+ *
+ * RAW groups keep using FileCopyEngine, whose zero-copy transferTo is cheaper when there is nothing to transform.
+ */
+@Component
+public class TransferPipeline {
+
+    // One step of the write path: consumes the remaining bytes of each chunk and passes its output downstream
+    interface Stage {
+        void write(ByteBuffer chunk) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    public static final class Result {
+        private final long bytesRead;
+        private final long bytesStored;
+        private final FileCopyEngine.Fingerprint fingerprint;
+
+        Result(long bytesRead, long bytesStored, FileCopyEngine.Fingerprint fingerprint) {
+            this.bytesRead = bytesRead;
+            this.bytesStored = bytesStored;
+            this.fingerprint = fingerprint;
+        }
+
+        public long getBytesRead() { return bytesRead; }
+        public long getBytesStored() { return bytesStored; }
+        public FileCopyEngine.Fingerprint getFingerprint() { return fingerprint; }
+    }
+
+    // Minimal gzip member header: deflate, no flags, no mtime, unknown OS
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final DirectBufferPool bufferPool;
+    private final BandwidthLimiter bandwidthLimiter;
+    private final Map<String, ReportFile.StorageFormat> groupFormats;
+    private final ReportFile.StorageFormat defaultFormat;
+    private final int compressionLevel;
+    private final long progressInterval;
+
+    public TransferPipeline(DirectBufferPool bufferPool, BandwidthLimiter bandwidthLimiter,
+                            @Value("#{${transfer.compression.formats:{:}}}") Map<String, String> groupFormats,
+                            @Value("${transfer.compression.default-format:RAW}") ReportFile.StorageFormat defaultFormat,
+                            @Value("${transfer.compression.level:6}") int compressionLevel,
+                            @Value("${transfer.copy.chunk-size:67108864}") long progressInterval) {
+        this.bufferPool = bufferPool;
+        this.bandwidthLimiter = bandwidthLimiter;
+        Map<String, ReportFile.StorageFormat> formats = new HashMap<>();
+        if (groupFormats != null) {
+            groupFormats.forEach((group, format) -> formats.put(group, ReportFile.StorageFormat.valueOf(format)));
+        }
+        this.groupFormats = Collections.unmodifiableMap(formats);
+        this.defaultFormat = defaultFormat;
+        this.compressionLevel = compressionLevel;
+        this.progressInterval = progressInterval;
+    }
+
+    public ReportFile.StorageFormat formatFor(String destinationGroup) {
+        return destinationGroup == null ? defaultFormat : groupFormats.getOrDefault(destinationGroup, defaultFormat);
+    }
+
+    public static String storedName(String fileName, ReportFile.StorageFormat format) {
+        return format == ReportFile.StorageFormat.GZIP ? fileName + ".gz" : fileName;
+    }
+
+    // Streams source through checksum (and compression) into target; progress reports source bytes consumed
+    public Result write(Path source, Path target, ReportFile.StorageFormat format,
+                        FileCopyEngine.ProgressListener listener) throws IOException, InterruptedException {
+        Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        boolean compress = format == ReportFile.StorageFormat.GZIP;
+        ByteBuffer[] buffers = bufferPool.acquire(compress ? 2 : 1);
+        ByteBuffer in = buffers[0];
+        Deflater deflater = null;
+        try (FileChannel src = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel dst = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            Stage tail = new ChannelSink(dst);
+            if (compress) {
+                deflater = new Deflater(compressionLevel, true);
+                tail = new GzipStage(deflater, buffers[1], tail);
+            }
+            ChecksumStage checksum = new ChecksumStage(tail);
+
+            long read = 0;
+            long nextProgress = progressInterval;
+            int n;
+            while ((n = src.read(in)) >= 0) {
+                bandwidthLimiter.acquire(n);
+                in.flip();
+                checksum.write(in);
+                in.clear();
+                read += n;
+                if (read >= nextProgress) {
+                    dst.force(false);
+                    listener.onDurableOffset(read);
+                    nextProgress = read + progressInterval;
+                }
+            }
+            checksum.finish();
+            dst.force(false);
+            return new Result(read, dst.size(), checksum.fingerprint());
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            bufferPool.release(buffers);
+        }
+    }
+
+    // CRC32C of the original content, recomputed by decoding the stored file; must match the write-time checksum
+    public String readBackChecksum(Path stored, ReportFile.StorageFormat format)
+            throws IOException, InterruptedException {
+        CRC32C crc = new CRC32C();
+        boolean compressed = format == ReportFile.StorageFormat.GZIP;
+        ByteBuffer[] buffers = bufferPool.acquire(compressed ? 2 : 1);
+        ByteBuffer in = buffers[0];
+        Inflater inflater = null;
+        try (FileChannel channel = FileChannel.open(stored, StandardOpenOption.READ)) {
+            if (!compressed) {
+                while (channel.read(in) >= 0) {
+                    in.flip();
+                    crc.update(in);
+                    in.clear();
+                }
+                return String.format("crc32c:%08x", crc.getValue());
+            }
+
+            ByteBuffer out = buffers[1];
+            inflater = new Inflater(true);
+            channel.position(GZIP_HEADER.length);
+            in.flip();
+            while (!inflater.finished()) {
+                if (inflater.needsInput()) {
+                    in.compact();
+                    int n = channel.read(in);
+                    in.flip();
+                    if (n < 0 && !in.hasRemaining()) {
+                        throw new IOException("Truncated gzip stream: " + stored);
+                    }
+                    inflater.setInput(in);
+                }
+                out.clear();
+                inflater.inflate(out);
+                out.flip();
+                crc.update(out);
+            }
+            return String.format("crc32c:%08x", crc.getValue());
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt gzip stream: " + stored, e);
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+            bufferPool.release(buffers);
+        }
+    }
+
+    // Stored bytes, decompressed on the fly unless the caller passes them through as-is (e.g. Content-Encoding)
+    public InputStream openForRead(Path stored, ReportFile.StorageFormat format, boolean decode) throws IOException {
+        InputStream raw = new BufferedInputStream(Files.newInputStream(stored), bufferPool.getBufferSize());
+        return decode && format == ReportFile.StorageFormat.GZIP
+            ? new GZIPInputStream(raw, bufferPool.getBufferSize())
+            : raw;
+    }
+
+    private static final class ChecksumStage implements Stage {
+        private final CRC32C crc = new CRC32C();
+        private final MessageDigest sha256;
+        private final Stage next;
+
+        ChecksumStage(Stage next) {
+            this.next = next;
+            try {
+                this.sha256 = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        @Override
+        public void write(ByteBuffer chunk) throws IOException {
+            int start = chunk.position();
+            crc.update(chunk);
+            chunk.position(start);
+            sha256.update(chunk);
+            chunk.position(start);
+            next.write(chunk);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            next.finish();
+        }
+
+        FileCopyEngine.Fingerprint fingerprint() {
+            return new FileCopyEngine.Fingerprint(String.format("crc32c:%08x", crc.getValue()),
+                "sha256:" + HexFormat.of().formatHex(sha256.digest()));
+        }
+    }
+
+    // Raw deflate framed as a single gzip member; CRC32 and length of the input form the trailer
+    private static final class GzipStage implements Stage {
+        private static final byte[] NO_INPUT = new byte[0];
+
+        private final Deflater deflater;
+        private final ByteBuffer out;
+        private final Stage next;
+        private final CRC32 crc = new CRC32();
+        private long inputLength;
+        private boolean headerWritten;
+
+        GzipStage(Deflater deflater, ByteBuffer out, Stage next) {
+            this.deflater = deflater;
+            this.out = out;
+            this.next = next;
+        }
+
+        @Override
+        public void write(ByteBuffer chunk) throws IOException {
+            writeHeader();
+            int start = chunk.position();
+            crc.update(chunk);
+            chunk.position(start);
+            inputLength += chunk.remaining();
+            deflater.setInput(chunk);
+            while (!deflater.needsInput()) {
+                drain();
+            }
+            // Detach the caller's buffer; it is refilled after this returns and must not be read again
+            deflater.setInput(NO_INPUT);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writeHeader();
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain();
+            }
+            out.clear();
+            out.order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt((int) crc.getValue());
+            out.putInt((int) inputLength);
+            out.order(ByteOrder.BIG_ENDIAN);
+            out.flip();
+            next.write(out);
+            next.finish();
+        }
+
+        private void writeHeader() throws IOException {
+            if (!headerWritten) {
+                headerWritten = true;
+                out.clear();
+                out.put(GZIP_HEADER);
+                out.flip();
+                next.write(out);
+            }
+        }
+
+        private void drain() throws IOException {
+            out.clear();
+            deflater.deflate(out);
+            out.flip();
+            if (out.hasRemaining()) {
+                next.write(out);
+            }
+        }
+    }
+
+    private static final class ChannelSink implements Stage {
+        private final FileChannel channel;
+
+        ChannelSink(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(ByteBuffer chunk) throws IOException {
+            while (chunk.hasRemaining()) {
+                channel.write(chunk);
+            }
+        }
+
+        @Override
+        public void finish() {
+        }
+    }
+}
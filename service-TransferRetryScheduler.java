@@ -0,0 +1,195 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.dao.ReportFileRepository;
+import com.scb.rwtoolbackend.model.ReportFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Automatic retries of FAILED transfers.
+ *
+ * A failed attempt waits base-delay-ms * 2^(attempt - 1), capped at max-delay-ms, with "equal jitter" (half fixed,
+ * half random) so files that failed together do not come back together. After max-attempts failures the row is
+ * dead-lettered instead. While a destinationGroup keeps failing (more than outage-threshold failures in a row with
+ * no success), its retries back off on the group's failure streak as well, so an unreachable source is probed
+ * rarely and the executor stays busy with runnable work from other groups.
+ *
+ * Waiting retries hold no thread: they sit in a HashedTimingWheel until due, then FileTransferService.retryTransfer
+ * moves the row FAILED -> PROCESSING (one winner across nodes) and queues it. nextRetryAt is persisted, and every
+ * scan-interval-ms the rows due within the next two intervals are loaded into the wheel, so retries survive
+ * restarts and failures recorded by other nodes are picked up.
+ */
+@Component
+public class TransferRetryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferRetryScheduler.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final LocalDateTime SCAN_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private ReportFileRepository fileRepository;
+
+    // Lazy: FileTransferService schedules retries here, and retries run through FileTransferService
+    @Lazy
+    @Autowired
+    private FileTransferService fileTransferService;
+
+    @Value("${transfer.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${transfer.retry.base-delay-ms:5000}")
+    private long baseDelayMillis;
+
+    @Value("${transfer.retry.max-delay-ms:600000}")
+    private long maxDelayMillis;
+
+    @Value("${transfer.retry.outage-threshold:5}")
+    private int outageThreshold;
+
+    @Value("${transfer.retry.scan-interval-ms:30000}")
+    private long scanIntervalMillis;
+
+    @Value("${transfer.retry.batch-size:500}")
+    private int batchSize;
+
+    private final HashedTimingWheel wheel;
+    private final ConcurrentHashMap<String, AtomicInteger> groupFailureStreaks = new ConcurrentHashMap<>();
+    private final Counter scheduled;
+    private final Counter deadLettered;
+
+    public TransferRetryScheduler(MeterRegistry registry,
+                                  @Value("${transfer.retry.tick-ms:100}") long tickMillis,
+                                  @Value("${transfer.retry.wheel-size:512}") int wheelSize) {
+        this.wheel = new HashedTimingWheel("transfer-retry-wheel", tickMillis, wheelSize, this::fire);
+        this.scheduled = Counter.builder("transfer.retry.scheduled")
+            .description("Failed transfers scheduled for an automatic retry")
+            .register(registry);
+        this.deadLettered = Counter.builder("transfer.retry.dead.lettered")
+            .description("Transfers moved to DEAD_LETTER after exhausting their attempts")
+            .register(registry);
+        Gauge.builder("transfer.retry.waiting", wheel, HashedTimingWheel::size)
+            .description("Retries waiting in the timing wheel")
+            .register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        wheel.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.stop();
+    }
+
+    // When a row that has now failed 'attempts' times should run again, or null to dead-letter it
+    public LocalDateTime nextAttemptAt(int attempts, String destinationGroup) {
+        if (attempts >= maxAttempts) {
+            deadLettered.increment();
+            return null;
+        }
+        long delay = backoff(attempts);
+        int streak = groupFailureStreaks.computeIfAbsent(groupKey(destinationGroup), g -> new AtomicInteger())
+            .incrementAndGet();
+        if (streak > outageThreshold) {
+            delay = Math.max(delay, backoff(streak - outageThreshold));
+        }
+        long half = delay / 2;
+        return LocalDateTime.now().plusNanos((half + ThreadLocalRandom.current().nextLong(half + 1)) * 1_000_000L);
+    }
+
+    // A verified transfer ends the group's outage streak
+    public void recordSuccess(String destinationGroup) {
+        groupFailureStreaks.remove(groupKey(destinationGroup));
+    }
+
+    public void schedule(String fileId, LocalDateTime dueAt) {
+        wheel.schedule(fileId, Math.max(0, Duration.between(LocalDateTime.now(), dueAt).toMillis()));
+        scheduled.increment();
+    }
+
+    // The retry could not be queued (scheduler full): try again after base-delay-ms without counting an attempt
+    public void postpone(String fileId) {
+        wheel.schedule(fileId, baseDelayMillis);
+    }
+
+    public void cancel(String fileId) {
+        wheel.cancel(fileId);
+    }
+
+    // Cause recorded on the row: exception type and message, bounded to the column length
+    public static String describe(Throwable cause) {
+        String text = cause.getClass().getSimpleName() + (cause.getMessage() == null ? "" : ": " + cause.getMessage());
+        return text.length() <= MAX_ERROR_LENGTH ? text : text.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @Scheduled(fixedDelayString = "${transfer.retry.scan-interval-ms:30000}")
+    public void loadDue() {
+        try {
+            loadDue(LocalDateTime.now().plusNanos(2 * scanIntervalMillis * 1_000_000L));
+        } catch (RuntimeException e) {
+            log.warn("Loading due transfer retries failed; will retry", e);
+        }
+    }
+
+    // Puts every FAILED row due before 'horizon' that is not already waiting into the wheel; returns how many
+    public int loadDue(LocalDateTime horizon) {
+        int loaded = 0;
+        LocalDateTime afterDate = SCAN_START;
+        String afterId = "";
+        List<ReportFile> due;
+        do {
+            due = fileRepository.findRetriesDue(ReportFile.TransferStatus.FAILED, horizon, afterDate, afterId,
+                PageRequest.of(0, batchSize));
+            for (ReportFile file : due) {
+                if (!wheel.isScheduled(file.getFileId())) {
+                    wheel.schedule(file.getFileId(),
+                        Math.max(0, Duration.between(LocalDateTime.now(), file.getNextRetryAt()).toMillis()));
+                    loaded++;
+                }
+            }
+            if (!due.isEmpty()) {
+                ReportFile last = due.get(due.size() - 1);
+                afterDate = last.getNextRetryAt();
+                afterId = last.getFileId();
+            }
+        } while (due.size() == batchSize);
+        return loaded;
+    }
+
+    public int getWaitingCount() {
+        return wheel.size();
+    }
+
+    // Runs on the wheel thread: one conditional UPDATE and an enqueue, never the copy itself
+    private void fire(String fileId) {
+        fileTransferService.retryTransfer(fileId);
+    }
+
+    private long backoff(int attempt) {
+        return Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+    }
+
+    private static String groupKey(String destinationGroup) {
+        return destinationGroup == null ? "" : destinationGroup;
+    }
+}
@@ -0,0 +1,225 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.model.ReportFileSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Fair front door for the TransferExecutor.
+ *
+ * Transfers wait in one queue per destinationGroup and are released weighted round-robin: each turn a group may
+ * start up to its weight (transfer.scheduler.weights.<group>, default 1) transfers, never more than
+ * max-running-per-group at once. Only as many transfers as the executor has workers are released, so waiting
+ * work stays here, in fair order, instead of in the executor's FIFO queue. A burst for one group therefore
+ * cannot starve the others. Byte rate is capped separately by BandwidthLimiter inside the copy engine.
+ *
+ * Ordering inside a group is FIFO, or SMALL_OLD_FIRST: smaller size class first, then oldest dateCreated.
+ */
+@Component
+public class TransferScheduler {
+
+    public enum Ordering {
+        FIFO, SMALL_OLD_FIRST
+    }
+
+    private static final class Pending {
+        final ReportFileSummary file;
+        final Callable<?> work;
+        final long sequence;
+        final long enqueuedNanos = System.nanoTime();
+
+        Pending(ReportFileSummary file, Callable<?> work, long sequence) {
+            this.file = file;
+            this.work = work;
+            this.sequence = sequence;
+        }
+
+        // Power-of-two size bucket, so "small first" does not reorder files of similar size
+        int sizeClass() {
+            Long size = file.getFileSize();
+            return size == null || size <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(size);
+        }
+    }
+
+    private static final class GroupQueue {
+        final String name;
+        final PriorityQueue<Pending> pending;
+        int running;
+        boolean inRotation;
+        long started;
+        long totalWaitNanos;
+        long maxWaitNanos;
+
+        GroupQueue(String name, Comparator<Pending> order) {
+            this.name = name;
+            this.pending = new PriorityQueue<>(order);
+        }
+    }
+
+    private static final Comparator<Pending> FIFO_ORDER = Comparator.comparingLong(p -> p.sequence);
+    private static final Comparator<Pending> SMALL_OLD_ORDER = Comparator
+        .comparingInt(Pending::sizeClass)
+        .thenComparing(p -> p.file.getDateCreated(), Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+        .thenComparingLong(p -> p.sequence);
+
+    @Autowired
+    private TransferExecutor transferExecutor;
+
+    private final int globalSlots;
+    private final int maxRunningPerGroup;
+    private final int maxQueued;
+    private final Map<String, Integer> weights;
+    private final Comparator<Pending> order;
+
+    // All state below is guarded by 'this'
+    private final Map<String, GroupQueue> groups = new HashMap<>();
+    private final ArrayDeque<GroupQueue> rotation = new ArrayDeque<>();
+    private final Map<String, Pending> queuedById = new HashMap<>();
+    private int inFlight;
+    private long sequence;
+
+    public TransferScheduler(@Value("${transfer.executor.pool-size:4}") int globalSlots,
+                             @Value("${transfer.scheduler.max-running-per-group:2}") int maxRunningPerGroup,
+                             @Value("${transfer.scheduler.max-queued:10000}") int maxQueued,
+                             @Value("#{${transfer.scheduler.weights:{:}}}") Map<String, Integer> weights,
+                             @Value("${transfer.scheduler.ordering:FIFO}") Ordering ordering) {
+        this.globalSlots = globalSlots;
+        this.maxRunningPerGroup = maxRunningPerGroup;
+        this.maxQueued = maxQueued;
+        this.weights = weights == null ? Collections.emptyMap() : weights;
+        this.order = ordering == Ordering.SMALL_OLD_FIRST ? SMALL_OLD_ORDER : FIFO_ORDER;
+    }
+
+    // Queues the transfer for its destinationGroup; throws RejectedExecutionException when max-queued is reached
+    public synchronized void submit(ReportFileSummary file, Callable<?> work) {
+        if (queuedById.size() >= maxQueued) {
+            throw new RejectedExecutionException("Transfer queue is full (" + maxQueued + ")");
+        }
+        String name = file.getDestinationGroup() == null ? "" : file.getDestinationGroup();
+        GroupQueue group = groups.computeIfAbsent(name, n -> new GroupQueue(n, order));
+
+        Pending pending = new Pending(file, work, sequence++);
+        group.pending.add(pending);
+        queuedById.put(file.getFileId(), pending);
+        if (!group.inRotation) {
+            group.inRotation = true;
+            rotation.addLast(group);
+        }
+        dispatch();
+    }
+
+    public synchronized boolean isQueued(String fileId) {
+        return queuedById.containsKey(fileId);
+    }
+
+    public synchronized List<String> getQueuedFileIds() {
+        return new ArrayList<>(queuedById.keySet());
+    }
+
+    public synchronized int getQueuedCount() {
+        return queuedById.size();
+    }
+
+    // Transfers of one destinationGroup waiting for an executor slot
+    public synchronized int getQueuedCount(String destinationGroup) {
+        GroupQueue group = groups.get(destinationGroup == null ? "" : destinationGroup);
+        return group == null ? 0 : group.pending.size();
+    }
+
+    // Weighted round-robin over groups with waiting work, bounded by free executor slots and per-group caps
+    private void dispatch() {
+        boolean progressed = true;
+        while (progressed && inFlight < globalSlots && !rotation.isEmpty()) {
+            progressed = false;
+            for (int turns = rotation.size(); turns > 0 && inFlight < globalSlots; turns--) {
+                GroupQueue group = rotation.pollFirst();
+                int quota = Math.max(1, weights.getOrDefault(group.name, 1));
+                while (quota-- > 0 && inFlight < globalSlots && group.running < maxRunningPerGroup
+                        && !group.pending.isEmpty()) {
+                    if (!start(group, group.pending.poll())) {
+                        // Executor is full; resume with this group when a running transfer finishes
+                        rotation.addFirst(group);
+                        return;
+                    }
+                    progressed = true;
+                }
+                if (group.pending.isEmpty()) {
+                    group.inRotation = false;
+                } else {
+                    rotation.addLast(group);
+                }
+            }
+        }
+    }
+
+    private boolean start(GroupQueue group, Pending pending) {
+        queuedById.remove(pending.file.getFileId());
+        group.running++;
+        inFlight++;
+        try {
+            transferExecutor.submit(pending.file.getFileId(), () -> {
+                try {
+                    return pending.work.call();
+                } finally {
+                    finished(group);
+                }
+            });
+            long waited = System.nanoTime() - pending.enqueuedNanos;
+            group.started++;
+            group.totalWaitNanos += waited;
+            group.maxWaitNanos = Math.max(group.maxWaitNanos, waited);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Executor saturated by work submitted elsewhere; put the transfer back
+            group.running--;
+            inFlight--;
+            group.pending.add(pending);
+            queuedById.put(pending.file.getFileId(), pending);
+            return false;
+        }
+    }
+
+    private synchronized void finished(GroupQueue group) {
+        group.running--;
+        inFlight--;
+        dispatch();
+    }
+
+    // Queue depth, running count and wait times per destinationGroup
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", inFlight);
+        stats.put("queued", queuedById.size());
+        Map<String, Object> perGroup = new LinkedHashMap<>();
+        for (GroupQueue group : groups.values()) {
+            Map<String, Object> g = new LinkedHashMap<>();
+            g.put("queued", group.pending.size());
+            g.put("running", group.running);
+            g.put("started", group.started);
+            g.put("avgWaitMs", group.started == 0 ? 0L
+                : TimeUnit.NANOSECONDS.toMillis(group.totalWaitNanos / group.started));
+            g.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(group.maxWaitNanos));
+            Pending oldest = group.pending.isEmpty() ? null : Collections.min(group.pending, FIFO_ORDER);
+            g.put("oldestWaitMs", oldest == null ? 0L
+                : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedNanos));
+            perGroup.put(group.name, g);
+        }
+        stats.put("groups", perGroup);
+        return stats;
+    }
+}
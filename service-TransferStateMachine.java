@@ -0,0 +1,38 @@
+package com.scb.rwtoolbackend.service;
+
+import com.scb.rwtoolbackend.dao.ReportFileRepository;
+import com.scb.rwtoolbackend.model.ReportFile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/*
+ * Enforces the ReportFile lifecycle (see TransferStatus.canTransitionTo).
+ * A transition is a single conditional UPDATE guarded by the expected current status, so under contention
+ * exactly one caller sees true and the others see false without a separate read.
+ */
+@Component
+public class TransferStateMachine {
+
+    @Autowired
+    private ReportFileRepository fileRepository;
+
+    // True only for the caller whose statement moved the row from 'from' to 'to'; the row's lease is released
+    public boolean transition(String fileId, ReportFile.TransferStatus from, ReportFile.TransferStatus to) {
+        return transition(fileId, from, to, null);
+    }
+
+    // Same, with the lease handed to leaseOwner (see ClusterNode) in the same statement
+    public boolean transition(String fileId, ReportFile.TransferStatus from, ReportFile.TransferStatus to,
+                              String leaseOwner) {
+        requireLegal(from, to);
+        return fileRepository.compareAndSetStatus(fileId, from, to, leaseOwner, LocalDateTime.now()) == 1;
+    }
+
+    public static void requireLegal(ReportFile.TransferStatus from, ReportFile.TransferStatus to) {
+        if (from == null || !from.canTransitionTo(to)) {
+            throw new IllegalStateException("Illegal transfer status transition " + from + " -> " + to);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.scb.rwtoolbackend;
 
-import com.scb.rwtoolbackend.service.FileTransferService;
+import com.scb.rwtoolbackend.service.InventoryReconciler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
@@ -8,16 +10,18 @@ import org.springframework.stereotype.Component;
 @Component
 public class ApplicationStartupRunner implements CommandLineRunner {
 
+    private static final Logger log = LoggerFactory.getLogger(ApplicationStartupRunner.class);
+
     @Autowired
-    private FileTransferService fileTransferService;
+    private InventoryReconciler inventoryReconciler;
 
     @Override
     public void run(String... args) throws Exception {
-        System.out.println("--- Initializing Mock Remote File Storage ---");
+        log.info("Starting background inventory reconciliation");
         
-        // This calls the service method to populate the database with test files.
-        fileTransferService.initializeRemoteFiles();
+        // Seeding, crash recovery and the remote walk run off the startup path; progress is on /api/ops/reconciliation
+        inventoryReconciler.startInBackground();
         
-        System.out.println("--- Database Initialized. Ready for API calls. ---");
+        log.info("Ready for API calls; readiness follows once the inventory has caught up");
     }
 }